@@ -0,0 +1,77 @@
+package com.zjgsu.obl.catalog_service.client;
+
+import com.zjgsu.obl.catalog_service.common.ApiResponse;
+import com.zjgsu.obl.catalog_service.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * enrollment-service 调用客户端，用于按选课记录校准课程的已选人数
+ */
+@Component
+public class EnrollmentClient {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentClient.class);
+
+    private static final ParameterizedTypeReference<ApiResponse<List<Map<String, Object>>>> ACTIVE_COUNTS_RESPONSE =
+            new ParameterizedTypeReference<>() {};
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Value("${enrollment-service.url:http://localhost:8082}")
+    private String enrollmentServiceUrl;
+
+    // 不超过选课服务单次统计的上限（pagination.max-size）
+    @Value("${enrollment-service.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 按选课服务中的活跃选课数计算各课程应有的已选人数：活跃选课数减去选课服务尚未投递过来的人数变化。
+     * 课程ID按 batch-size 分块调用 POST /api/enrollments/active-counts，每块在选课服务中是一次分组查询
+     * @return 每门课程应有的已选人数，选课服务没有返回的课程不出现在结果中
+     */
+    public Map<String, Integer> expectedEnrolledCounts(Collection<String> courseIds) {
+        List<String> ids = new ArrayList<>(courseIds);
+        Map<String, Integer> expected = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<String> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            for (Map<String, Object> count : fetchActiveCounts(chunk)) {
+                long active = ((Number) count.get("active")).longValue();
+                long pending = count.get("pending") instanceof Number number ? number.longValue() : 0;
+                expected.put((String) count.get("courseId"), (int) (active - pending));
+            }
+        }
+        return expected;
+    }
+
+    private List<Map<String, Object>> fetchActiveCounts(List<String> courseIds) {
+        String url = enrollmentServiceUrl + "/api/enrollments/active-counts";
+        logger.debug("批量统计活跃选课数: {}, size={}", url, courseIds.size());
+
+        try {
+            ApiResponse<List<Map<String, Object>>> response = restTemplate.exchange(
+                    url, HttpMethod.POST, new HttpEntity<>(courseIds), ACTIVE_COUNTS_RESPONSE).getBody();
+            if (response != null && response.getData() != null) {
+                return response.getData();
+            }
+            throw new BusinessException("选课服务返回的选课数无效");
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BusinessException("选课服务暂时不可用: " + e.getMessage(), e);
+        }
+    }
+}
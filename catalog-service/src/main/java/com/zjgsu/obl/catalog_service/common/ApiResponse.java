@@ -1,9 +1,15 @@
 package com.zjgsu.obl.catalog_service.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
 public class ApiResponse<T> {
     private int code;
     private String message;
     private T data;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next; // 游标分页时下一页的游标，没有下一页或非分页响应时不输出
 
     // 构造方法
     public ApiResponse() {}
@@ -23,6 +29,13 @@ public class ApiResponse<T> {
         return new ApiResponse<>(200, message, data);
     }
 
+    // 游标分页响应：data 为当前页数据，next 为下一页游标
+    public static <T> ApiResponse<List<T>> page(CursorPage<T> page) {
+        ApiResponse<List<T>> response = new ApiResponse<>(200, "Success", page.getItems());
+        response.setNext(page.getNext());
+        return response;
+    }
+
     // 快速创建错误响应的方法
     public static <T> ApiResponse<T> error(int code, String message) {
         return new ApiResponse<>(code, message, null);
@@ -35,4 +48,6 @@ public class ApiResponse<T> {
     public void setMessage(String message) { this.message = message; }
     public T getData() { return data; }
     public void setData(T data) { this.data = data; }
+    public String getNext() { return next; }
+    public void setNext(String next) { this.next = next; }
 }
@@ -0,0 +1,73 @@
+package com.zjgsu.obl.catalog_service.common;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间排序的 UUID（RFC 9562 UUIDv7）生成与 BINARY(16) 编解码
+ *
+ * 布局：48 位毫秒时间戳 | 版本号 7 | 12 位毫秒内计数器 | 变体 | 62 位随机数。
+ * 按字节比较即按生成时间排序，新记录总是追加到 InnoDB 聚簇索引的末尾，不会像随机 UUID 那样到处分裂页。
+ * 同一毫秒内计数器递增，计数器用尽时借用下一毫秒，保证本进程内生成的 ID 严格递增。
+ *
+ * 对外（REST 接口、enrollments.course_id）仍然是 36 位小写字符串形式，与原来的 uuid2 相同
+ */
+public final class TimeOrderedUuid {
+    private static final byte[] EMPTY = new byte[0];
+
+    // 高 48 位为毫秒时间戳，低 12 位为毫秒内计数器
+    private static final AtomicLong lastTimestamp = new AtomicLong();
+
+    private TimeOrderedUuid() {
+    }
+
+    public static String generate() {
+        long now = System.currentTimeMillis() << 12;
+        long previous;
+        long next;
+        do {
+            previous = lastTimestamp.get();
+            next = Math.max(previous + 1, now);
+        } while (!lastTimestamp.compareAndSet(previous, next));
+
+        long mostSigBits = (next >>> 12) << 16 | 0x7000L | (next & 0xFFFL);
+        long leastSigBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    /**
+     * 字符串形式转为 16 字节；空串或不是 UUID 格式时返回空字节数组，
+     * 它不等于任何 16 字节的主键且小于所有主键（用作第一页游标、查询不存在的 ID）
+     */
+    public static byte[] toBytes(String id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.length() != 36) {
+            return EMPTY;
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return EMPTY;
+        }
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("主键长度应为 16 字节: " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
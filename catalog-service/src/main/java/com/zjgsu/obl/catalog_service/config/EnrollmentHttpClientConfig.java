@@ -0,0 +1,30 @@
+package com.zjgsu.obl.catalog_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * 调用 enrollment-service 使用的 HTTP 客户端：限定连接和读取超时，
+ * 避免选课服务变慢或不可用时人数校准、启动恢复等调用无限期等待
+ */
+@Configuration
+public class EnrollmentHttpClientConfig {
+    @Value("${enrollment-service.http.connect-timeout:1s}")
+    private Duration connectTimeout;
+
+    @Value("${enrollment-service.http.read-timeout:5s}")
+    private Duration readTimeout;
+
+    @Bean
+    public RestTemplate restTemplate() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(requestFactory);
+    }
+}
@@ -3,10 +3,15 @@ package com.zjgsu.obl.catalog_service.controller;
 
 
 import com.zjgsu.obl.catalog_service.common.ApiResponse;
+import com.zjgsu.obl.catalog_service.common.CursorPage;
+import com.zjgsu.obl.catalog_service.dto.CourseSummary;
+import com.zjgsu.obl.catalog_service.dto.ListView;
+import com.zjgsu.obl.catalog_service.dto.SeatEvent;
 import com.zjgsu.obl.catalog_service.exception.ResourceNotFoundException;
 import com.zjgsu.obl.catalog_service.model.Course;
 import com.zjgsu.obl.catalog_service.service.CourseService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,20 +19,42 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/courses")
 public class CourseController {
+    // 单次批量查询允许的最大ID数量
+    private static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private CourseService courseService;
 
+    @Value("${pagination.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${pagination.max-size:500}")
+    private int maxPageSize;
+
     private static final Logger logger = LoggerFactory.getLogger(CourseController.class);
 
-    // 查询所有课程
+    // 新增：分页查询课程，默认按游标分页（cursor + size），传 page 时按偏移量分页；view=summary 返回课程摘要
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Course>>> getAllCourses() {
-        List<Course> courses = courseService.findAll();
-        return ResponseEntity.ok(ApiResponse.success(courses));
+    public ResponseEntity<ApiResponse<? extends List<?>>> getAllCourses(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String view) {
+        int pageSize = CursorPage.resolveSize(size, defaultPageSize, maxPageSize);
+        if (ListView.from(view) == ListView.SUMMARY) {
+            return page != null
+                    ? ResponseEntity.ok(ApiResponse.success(courseService.findSummaryPage(page, pageSize)))
+                    : ResponseEntity.ok(ApiResponse.page(courseService.findSummaryPage(cursor, pageSize)));
+        }
+        if (page != null) {
+            return ResponseEntity.ok(ApiResponse.success(courseService.findPage(page, pageSize)));
+        }
+        return ResponseEntity.ok(ApiResponse.page(courseService.findPage(cursor, pageSize)));
     }
 
     // 查询单个课程
@@ -39,6 +66,17 @@ public class CourseController {
                         .body(ApiResponse.error(404, "Course not found")));
     }
 
+    // 新增：按ID批量查询课程（供选课服务批量获取课程信息）
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<Course>>> getCoursesByIds(@RequestBody Set<String> ids) {
+        if (ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(400, "单次最多查询 " + MAX_BATCH_SIZE + " 门课程"));
+        }
+        List<Course> courses = courseService.findByIds(ids);
+        return ResponseEntity.ok(ApiResponse.success(courses));
+    }
+
     // 创建课程
     @PostMapping
     public ResponseEntity<ApiResponse<Course>> createCourse(@RequestBody Course course) {
@@ -64,6 +102,53 @@ public class CourseController {
         }
     }
 
+    // 新增：原子占座（已满返回 409）；count > 1 时批量占座，座位不足时只占剩余部分，data 为实际占到的座位数
+    @PostMapping("/{id}/seats/reserve")
+    public ResponseEntity<ApiResponse<Integer>> reserveSeat(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "1") int count) {
+        int granted = count == 1 ? (courseService.reserveSeat(id) ? 1 : 0) : courseService.reserveSeats(id, count);
+        if (granted > 0) {
+            return ResponseEntity.ok(ApiResponse.success("占座成功", granted));
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(409, "课程容量已满"));
+    }
+
+    // 新增：批量应用多门课程的人数变化（正数占座、负数释放），一个事务完成；data 为每门课程实际变化的人数，不存在的课程不返回
+    @PostMapping("/seats/deltas")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> applySeatDeltas(@RequestBody Map<String, Integer> deltas) {
+        if (deltas.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(400, "单次最多提交 " + MAX_BATCH_SIZE + " 门课程"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("人数变化已应用", courseService.applySeatDeltas(deltas)));
+    }
+
+    // 新增：应用选课服务 outbox 投递的人数变化事件（请求体为 [{id, courseId, delta}]，最多500条），已应用过的事件ID跳过；
+    // data 为每门课程实际变化的人数
+    @PostMapping("/seats/events")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> applySeatEvents(@RequestBody List<SeatEvent> events) {
+        if (events.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(400, "单次最多提交 " + MAX_BATCH_SIZE + " 条人数变化"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("人数变化已应用", courseService.applySeatEvents(events)));
+    }
+
+    // 新增：原子释放座位；count > 1 时批量释放，data 为实际释放的座位数
+    @PostMapping("/{id}/seats/release")
+    public ResponseEntity<ApiResponse<Integer>> releaseSeat(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "1") int count) {
+        int releasedSeats = count == 1 ? (courseService.releaseSeat(id) ? 1 : 0) : courseService.releaseSeats(id, count);
+        if (releasedSeats > 0) {
+            return ResponseEntity.ok(ApiResponse.success("释放座位成功", releasedSeats));
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(409, "课程已选人数为0"));
+    }
+
 //    // 在 CourseController.java 中添加部分更新接口
 //    @PatchMapping("/{id}")
 //    public ResponseEntity<ApiResponse<Course>> partialUpdateCourse(
@@ -114,11 +199,21 @@ public class CourseController {
 
     // 新增：按标题关键字搜索课程
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<Course>>> searchCourses(@RequestParam String keyword) {
-        List<Course> courses = courseService.findByTitleKeyword(keyword);
+    public ResponseEntity<ApiResponse<List<Course>>> searchCourses(
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer limit) {
+        List<Course> courses = courseService.findByTitleKeyword(keyword, limit);
         return ResponseEntity.ok(ApiResponse.success(courses));
     }
 
+    // 新增：输入联想（课程代码、名称分词、教师姓名前缀），按剩余容量排序
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<CourseSummary>>> suggestCourses(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.success(courseService.suggest(prefix, limit)));
+    }
+
     // 新增：多条件组合查询
     @GetMapping("/query")
     public ResponseEntity<ApiResponse<List<Course>>> queryCourses(
@@ -0,0 +1,61 @@
+package com.zjgsu.obl.catalog_service.controller;
+
+import com.zjgsu.obl.catalog_service.common.ApiResponse;
+import com.zjgsu.obl.catalog_service.config.ReadWriteRoutingDataSource;
+import com.zjgsu.obl.catalog_service.service.CourseSearchIndex;
+import com.zjgsu.obl.catalog_service.service.EnrolledCountReconciler;
+import com.zjgsu.obl.catalog_service.service.SeatLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private EnrolledCountReconciler enrolledCountReconciler;
+
+    // 只在开启读写分离时存在
+    @Autowired(required = false)
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    // 选课窗口模式下内存座位账本的占座/拒绝/写回统计
+    @GetMapping("/seat-ledger")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSeatLedgerStats() {
+        return ResponseEntity.ok(ApiResponse.success(seatLedger.stats()));
+    }
+
+    // 课程搜索内存索引的规模与查询/重建次数
+    @GetMapping("/course-search")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCourseSearchStats() {
+        return ResponseEntity.ok(ApiResponse.success(courseSearchIndex.stats()));
+    }
+
+    // 已选人数校准：扫描的课程数、发现的偏差和已修正的课程数
+    @GetMapping("/count-reconciliation")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCountReconciliationStats() {
+        return ResponseEntity.ok(ApiResponse.success(enrolledCountReconciler.stats()));
+    }
+
+    // 读写分离：主库/从库分配的连接数，以及写后读窗口内改走主库的只读事务数
+    @GetMapping("/datasource-routing")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getDataSourceRoutingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", routingDataSource != null);
+        if (routingDataSource != null) {
+            stats.putAll(routingDataSource.stats());
+        }
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+}
@@ -0,0 +1,14 @@
+package com.zjgsu.obl.catalog_service.dto;
+
+/**
+ * 课程摘要：列表接口 view=summary 时返回，直接由 JPQL 构造表达式生成，不经过持久化上下文
+ */
+public record CourseSummary(
+        String id,
+        String courseCode,
+        String title,
+        String instructorName,
+        Integer capacity,
+        Integer enrolledCount
+) {
+}
@@ -0,0 +1,21 @@
+package com.zjgsu.obl.catalog_service.dto;
+
+/**
+ * 列表接口的返回视图
+ */
+public enum ListView {
+    FULL,     // 完整实体（默认）
+    SUMMARY;  // 精简摘要
+
+    public static ListView from(String view) {
+        if (view == null || view.isBlank()) {
+            return FULL;
+        }
+        for (ListView value : values()) {
+            if (value.name().equalsIgnoreCase(view)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("不支持的视图: " + view + "，可选 full 或 summary");
+    }
+}
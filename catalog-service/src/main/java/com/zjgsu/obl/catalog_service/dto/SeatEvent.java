@@ -0,0 +1,11 @@
+package com.zjgsu.obl.catalog_service.dto;
+
+/**
+ * 选课服务 outbox 投递的一条人数变化：id 为事件ID，同一事件重复投递时只应用一次
+ */
+public record SeatEvent(
+        String id,
+        String courseId,
+        Integer delta
+) {
+}
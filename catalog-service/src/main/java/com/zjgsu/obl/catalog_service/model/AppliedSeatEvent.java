@@ -0,0 +1,48 @@
+package com.zjgsu.obl.catalog_service.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Type;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已应用的人数变化事件（选课服务 seat_outbox 中的事件ID），与人数变化在同一个事务中写入，
+ * 选课服务重复投递同一事件时不再修改人数；超过保留期的记录定期清理
+ */
+@Entity
+@Table(name = "applied_seat_events", indexes = {
+        @Index(name = "idx_applied_seat_events_applied_at", columnList = "applied_at")
+})
+public class AppliedSeatEvent implements Persistable<String> {
+    @Id
+    @Type(BinaryUuidType.class)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private String id; // 选课服务分配的事件ID（UUIDv7）
+
+    @Column(name = "applied_at", nullable = false, updatable = false)
+    private LocalDateTime appliedAt;
+
+    protected AppliedSeatEvent() {
+    }
+
+    public AppliedSeatEvent(String id, LocalDateTime appliedAt) {
+        this.id = id;
+        this.appliedAt = appliedAt;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public LocalDateTime getAppliedAt() {
+        return appliedAt;
+    }
+
+    // 只插入不更新：保存时直接 INSERT，不先按主键查询一次
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package com.zjgsu.obl.catalog_service.model;
+
+import com.zjgsu.obl.catalog_service.common.TimeOrderedUuid;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+
+/**
+ * 主键在 Java 中仍是 UUID 字符串，数据库中存为 BINARY(16)：
+ * 比 VARCHAR(36) 少 20 字节，每个二级索引条目都带着主键，索引一起变小
+ */
+public class BinaryUuidType implements UserType<String> {
+
+    @Override
+    public int getSqlType() {
+        return Types.BINARY;
+    }
+
+    @Override
+    public Class<String> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(String x, String y) {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(String x) {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public String nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner)
+            throws SQLException {
+        return TimeOrderedUuid.fromBytes(rs.getBytes(position));
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, String value, int index, SharedSessionContractImplementor session)
+            throws SQLException {
+        if (value == null) {
+            st.setNull(index, Types.BINARY);
+        } else {
+            st.setBytes(index, TimeOrderedUuid.toBytes(value));
+        }
+    }
+
+    @Override
+    public String deepCopy(String value) {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(String value) {
+        return value;
+    }
+
+    @Override
+    public String assemble(Serializable cached, Object owner) {
+        return (String) cached;
+    }
+}
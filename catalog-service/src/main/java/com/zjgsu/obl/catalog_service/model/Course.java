@@ -2,18 +2,22 @@ package com.zjgsu.obl.catalog_service.model;
 
 
 import jakarta.persistence.*;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Type;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "courses")
+@Table(name = "courses", indexes = {
+        @Index(name = "idx_courses_instructor_id", columnList = "instructor_id")
+})
+@DynamicUpdate // 只更新修改过的列，避免编辑课程时用旧值覆盖 enrolled_count
 public class Course {
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
-    @Column(columnDefinition = "VARCHAR(36)", updatable = false, nullable = false)
-    private String id; // 系统生成的课程ID
+    @TimeOrderedId
+    @Type(BinaryUuidType.class)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private String id; // 系统生成的课程ID（UUIDv7，按时间递增）
 
     @Column(name = "course_code", unique = true,nullable = false,length = 50)
     private String courseCode; // 课程代码，如 "CS101"
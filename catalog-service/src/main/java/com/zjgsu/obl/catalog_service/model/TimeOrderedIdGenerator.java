@@ -0,0 +1,26 @@
+package com.zjgsu.obl.catalog_service.model;
+
+import com.zjgsu.obl.catalog_service.common.TimeOrderedUuid;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+import java.util.EnumSet;
+
+/**
+ * {@link TimeOrderedId} 对应的主键生成器，在内存中生成，不需要访问数据库
+ */
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return TimeOrderedUuid.generate();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,27 @@
+package com.zjgsu.obl.catalog_service.repository;
+
+import com.zjgsu.obl.catalog_service.model.AppliedSeatEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AppliedSeatEventRepository extends JpaRepository<AppliedSeatEvent, String> {
+
+    // 这些事件中已经应用过的事件ID
+    @Query("SELECT e.id FROM AppliedSeatEvent e WHERE e.id IN :ids")
+    List<String> findAppliedIds(@Param("ids") Collection<String> ids);
+
+    // 清理保留期之前应用的事件ID
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AppliedSeatEvent e WHERE e.appliedAt < :before")
+    int deleteAppliedBefore(@Param("before") LocalDateTime before);
+}
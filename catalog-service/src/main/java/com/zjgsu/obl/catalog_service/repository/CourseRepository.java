@@ -1,16 +1,25 @@
 package com.zjgsu.obl.catalog_service.repository;
 
+import com.zjgsu.obl.catalog_service.dto.CourseSummary;
 import com.zjgsu.obl.catalog_service.model.Course;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CourseRepository extends JpaRepository<Course, String> {
+public interface CourseRepository extends JpaRepository<Course, String>, JpaSpecificationExecutor<Course> {
 
     // 按课程代码查询课程
     Optional<Course> findByCourseCode(String courseCode);
@@ -29,12 +38,47 @@ public interface CourseRepository extends JpaRepository<Course, String> {
     // 检查课程代码是否存在
     boolean existsByCourseCode(String courseCode);
 
-    // 添加：按多个条件组合查询
-    @Query("SELECT c FROM Course c WHERE " +
-            "(:courseCode IS NULL OR c.courseCode = :courseCode) AND " +
-            "(:instructorId IS NULL OR c.instructor.id = :instructorId) AND " +
-            "(:title IS NULL OR c.title LIKE %:title%)")
-    List<Course> findByMultipleCriteria(@Param("courseCode") String courseCode,
-                                        @Param("instructorId") String instructorId,
-                                        @Param("title") String title);
+    // 游标分页：按主键升序取 id 大于游标的前 limit 条
+    List<Course> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    // 摘要视图：构造表达式直接生成 DTO，只查需要的列，结果不进入持久化上下文
+    @Query("SELECT new com.zjgsu.obl.catalog_service.dto.CourseSummary(" +
+            "c.id, c.courseCode, c.title, c.instructor.name, c.capacity, c.enrolledCount) " +
+            "FROM Course c WHERE c.id > :id ORDER BY c.id")
+    List<CourseSummary> findSummariesAfter(@Param("id") String id, Limit limit);
+
+    @Query("SELECT new com.zjgsu.obl.catalog_service.dto.CourseSummary(" +
+            "c.id, c.courseCode, c.title, c.instructor.name, c.capacity, c.enrolledCount) FROM Course c")
+    List<CourseSummary> findSummaries(Pageable pageable);
+
+    // 输入联想（关闭内存索引时使用）：课程代码或名称前缀匹配，按剩余容量降序
+    @Query("SELECT new com.zjgsu.obl.catalog_service.dto.CourseSummary(" +
+            "c.id, c.courseCode, c.title, c.instructor.name, c.capacity, c.enrolledCount) FROM Course c " +
+            "WHERE c.courseCode LIKE CONCAT(:prefix, '%') OR c.title LIKE CONCAT(:prefix, '%') " +
+            "ORDER BY c.capacity - c.enrolledCount DESC, c.courseCode")
+    List<CourseSummary> findSummariesByPrefix(@Param("prefix") String prefix, Limit limit);
+
+    // 加行锁读取课程（SELECT ... FOR UPDATE），用于批量占座/释放时先读人数再修改
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Course c WHERE c.id = :id")
+    Optional<Course> findByIdForUpdate(@Param("id") String id);
+
+    // 按主键顺序对一批课程加行锁，并发的批量人数变化加锁顺序一致，不会互相死锁
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Course c WHERE c.id IN :ids ORDER BY c.id")
+    List<Course> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
+
+    // 原子占座：仅在未满时已选人数 +1，返回受影响行数（0 表示已满或课程不存在）
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.enrolledCount = c.enrolledCount + 1, c.updatedAt = local datetime " +
+            "WHERE c.id = :id AND c.enrolledCount < c.capacity")
+    int reserveSeat(@Param("id") String id);
+
+    // 原子释放座位：仅在已选人数大于0时 -1
+    @Transactional
+    @Modifying
+    @Query("UPDATE Course c SET c.enrolledCount = c.enrolledCount - 1, c.updatedAt = local datetime " +
+            "WHERE c.id = :id AND c.enrolledCount > 0")
+    int releaseSeat(@Param("id") String id);
 }
@@ -0,0 +1,35 @@
+package com.zjgsu.obl.catalog_service.repository;
+
+import com.zjgsu.obl.catalog_service.model.Course;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 课程动态查询条件：只拼接实际传入的条件，生成的 SQL 中不会出现 "? IS NULL OR ..."，
+ * 数据库可以按 course_code 唯一索引或 instructor_id 索引查找
+ */
+public final class CourseSpecifications {
+    private CourseSpecifications() {
+    }
+
+    public static Specification<Course> matching(String courseCode, String instructorId, String title) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (StringUtils.hasText(courseCode)) {
+                predicates.add(cb.equal(root.get("courseCode"), courseCode));
+            }
+            if (StringUtils.hasText(instructorId)) {
+                predicates.add(cb.equal(root.get("instructor").get("id"), instructorId));
+            }
+            if (StringUtils.hasText(title)) {
+                // 标题按包含匹配，无法走索引，只在传入标题时才追加，其余条件先缩小范围
+                predicates.add(cb.like(root.get("title"), "%" + title + "%"));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
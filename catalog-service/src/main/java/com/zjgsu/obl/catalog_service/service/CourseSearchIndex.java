@@ -0,0 +1,547 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.dto.CourseSummary;
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.model.ScheduleSlot;
+import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 课程名称/课程代码的内存 n-gram 倒排索引
+ *
+ * 每门课程的 title 和 courseCode 归一化（NFKC、转小写、去掉空白）后切成单字和相邻两字的 gram，
+ * 中文按字切分，因此"数据结构"会产生"数据""据结""结构"等二元组。
+ * 查询时取关键词所有二元组的倒排表求交集得到候选，再用子串匹配确认，结果与 LIKE '%kw%' 一致，
+ * 但不访问数据库；命中结果按匹配位置排序并截取前 N 条。
+ *
+ * 输入联想使用同一份数据上的压缩前缀树，键为课程代码、课程名称及其分词、教师姓名；
+ * 中文没有词边界，名称中的中文片段从每个字开始各建一个键，输入中间的词也能联想到。
+ * 联想结果按剩余容量从多到少取前 k 条。
+ *
+ * 课程增删改在事务提交后增量更新索引；另有定时全量重建，
+ * 用于同步其他实例的修改以及座位占用造成的 enrolledCount 变化（搜索结果中的已选人数可能有短暂延迟）。
+ */
+@Component
+public class CourseSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CourseSearchIndex.class);
+
+    @Value("${catalog.search.index-enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${catalog.search.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${catalog.search.suggest-limit:10}")
+    private int suggestLimit;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+
+    // 全量重建期间提交的增量变更，重建完成后在新索引上重放，避免被旧数据覆盖
+    private List<Consumer<Index>> pendingDuringRebuild;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong suggestions = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启动时从数据库加载全部课程建立索引，在 Web 服务开始接收请求之前完成
+     */
+    @PostConstruct
+    public void load() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 定时全量重建索引
+     */
+    @Scheduled(initialDelayString = "${catalog.search.rebuild-interval-ms:60000}",
+            fixedDelayString = "${catalog.search.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.currentTimeMillis();
+        Index rebuilt = new Index();
+        try {
+            for (Course course : courseRepository.findAll()) {
+                rebuilt.put(snapshot(course));
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+            pendingDuringRebuild = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        rebuilds.incrementAndGet();
+        logger.debug("课程搜索索引重建完成: courses={}, grams={}, 耗时={}ms",
+                rebuilt.courses.size(), rebuilt.postings.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 新增或更新课程：在当前事务提交后写入索引，事务回滚则不生效
+     */
+    public void index(Course course) {
+        Course snapshot = snapshot(course);
+        afterCommit(index -> index.put(snapshot));
+    }
+
+    /**
+     * 删除课程：在当前事务提交后从索引移除
+     */
+    public void remove(String courseId) {
+        afterCommit(index -> index.remove(courseId));
+    }
+
+    /**
+     * 子串搜索课程名称和课程代码（忽略大小写、全半角和空白）
+     * @param limit 返回条数，为空时取默认值，超过上限按上限处理
+     */
+    public List<Course> search(String keyword, Integer limit) {
+        int resolvedLimit = resolveLimit(limit);
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+
+        searches.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            return index.search(query, resolvedLimit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 输入联想：课程代码、名称分词或教师姓名以 prefix 开头的课程，按剩余容量从多到少返回前 k 条
+     * @param limit 返回条数，为空时取 suggest-limit
+     */
+    public List<CourseSummary> suggest(String prefix, Integer limit) {
+        int resolvedLimit = resolveSuggestLimit(limit);
+        String query = normalize(prefix);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+
+        suggestions.incrementAndGet();
+        lock.readLock().lock();
+        try {
+            return index.suggest(query, resolvedLimit, maxLimit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("返回条数必须大于0");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    public int resolveSuggestLimit(Integer limit) {
+        return limit == null ? suggestLimit : resolveLimit(limit);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            stats.put("courses", index.courses.size());
+            stats.put("grams", index.postings.size());
+            stats.put("postings", index.postings.values().stream().mapToLong(Set::size).sum());
+            stats.put("trieKeys", index.trie.size());
+            stats.put("trieNodes", index.trie.nodeCount());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("searches", searches.get());
+        stats.put("suggestions", suggestions.get());
+        stats.put("rebuilds", rebuilds.get());
+        return stats;
+    }
+
+    private void afterCommit(Consumer<Index> change) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Consumer<Index> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 归一化：NFKC（全角转半角）、转小写、去掉所有空白
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 索引中保存课程的独立副本，不持有受 JPA 管理的实体
+     */
+    private static Course snapshot(Course course) {
+        Instructor instructor = course.getInstructor() == null ? null : new Instructor(
+                course.getInstructor().getId(), course.getInstructor().getName(), course.getInstructor().getEmail());
+        ScheduleSlot schedule = course.getSchedule() == null ? null : new ScheduleSlot(
+                course.getSchedule().getDayOfWeek(), course.getSchedule().getStartTime(),
+                course.getSchedule().getEndTime(), course.getSchedule().getExpectedAttendance());
+        Course copy = new Course(course.getId(), course.getCode(), course.getTitle(),
+                instructor, schedule, course.getCapacity());
+        copy.setEnrolledCount(course.getEnrolledCount());
+        copy.setCreatedAt(course.getCreatedAt());
+        copy.setUpdatedAt(course.getUpdatedAt());
+        return copy;
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparingInt(Hit::rank)
+            .thenComparingInt(Hit::position)
+            .thenComparingInt(hit -> hit.entry().title.length())
+            .thenComparing(hit -> hit.entry().code);
+
+    /**
+     * 一门课程在索引中的条目，保存归一化后的名称、代码及其全部 gram
+     */
+    private static final class Entry {
+        final Course course;
+        final String title;
+        final String code;
+        final Set<String> grams = new HashSet<>();
+        final Set<String> prefixKeys = new HashSet<>();
+        final int remainingSeats;
+
+        Entry(Course course) {
+            this.course = course;
+            this.title = normalize(course.getTitle());
+            this.code = normalize(course.getCode());
+            addGrams(title, grams);
+            addGrams(code, grams);
+
+            addPrefixKeys(course.getCode(), false, prefixKeys);
+            addPrefixKeys(course.getTitle(), true, prefixKeys);
+            if (course.getInstructor() != null) {
+                addPrefixKeys(course.getInstructor().getName(), false, prefixKeys);
+            }
+            int capacity = course.getCapacity() == null ? 0 : course.getCapacity();
+            int enrolled = course.getEnrolledCount() == null ? 0 : course.getEnrolledCount();
+            this.remainingSeats = capacity - enrolled;
+        }
+
+        CourseSummary summary() {
+            return new CourseSummary(course.getId(), course.getCode(), course.getTitle(),
+                    course.getInstructor() == null ? null : course.getInstructor().getName(),
+                    course.getCapacity(), course.getEnrolledCount());
+        }
+
+        /**
+         * 排序规则：代码完全匹配 > 名称完全匹配 > 代码前缀 > 名称前缀 > 名称包含 > 代码包含；
+         * 同一档内匹配位置越靠前、名称越短越靠前
+         * @return 未匹配时返回 null
+         */
+        Hit match(String query) {
+            if (code.equals(query)) {
+                return new Hit(this, 0, 0);
+            }
+            if (title.equals(query)) {
+                return new Hit(this, 1, 0);
+            }
+            if (code.startsWith(query)) {
+                return new Hit(this, 2, 0);
+            }
+            if (title.startsWith(query)) {
+                return new Hit(this, 3, 0);
+            }
+            int position = title.indexOf(query);
+            if (position >= 0) {
+                return new Hit(this, 4, position);
+            }
+            position = code.indexOf(query);
+            if (position >= 0) {
+                return new Hit(this, 5, position);
+            }
+            return null;
+        }
+    }
+
+    private record Hit(Entry entry, int rank, int position) {
+    }
+
+    /**
+     * 单字 gram 支持一个字的查询，二元组用于更长查询的候选集求交
+     */
+    private static void addGrams(String text, Set<String> grams) {
+        for (int i = 0; i < text.length(); i++) {
+            grams.add(text.substring(i, i + 1));
+            if (i + 1 < text.length()) {
+                grams.add(text.substring(i, i + 2));
+            }
+        }
+    }
+
+    /**
+     * 前缀树的键：整段文本，以及按空白、标点和中英文边界切出的词；
+     * cjkSuffixes 为 true 时中文片段从每个字开始各取一个后缀
+     */
+    private static void addPrefixKeys(String text, boolean cjkSuffixes, Set<String> keys) {
+        String whole = normalize(text);
+        if (whole.isEmpty()) {
+            return;
+        }
+        keys.add(whole);
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int start = -1;
+        boolean cjk = false;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean boundary = i == normalized.length() || !Character.isLetterOrDigit(normalized.charAt(i));
+            boolean currentCjk = !boundary && isCjk(normalized.charAt(i));
+            if (start >= 0 && (boundary || currentCjk != cjk)) {
+                addToken(normalized.substring(start, i), cjk && cjkSuffixes, keys);
+                start = -1;
+            }
+            if (!boundary && start < 0) {
+                start = i;
+                cjk = currentCjk;
+            }
+        }
+    }
+
+    private static void addToken(String token, boolean suffixes, Set<String> keys) {
+        keys.add(token);
+        if (suffixes) {
+            for (int i = 1; i < token.length(); i++) {
+                keys.add(token.substring(i));
+            }
+        }
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private static final Comparator<Entry> BY_REMAINING_SEATS = Comparator
+            .comparingInt((Entry entry) -> entry.remainingSeats)
+            .thenComparing(entry -> entry.code, Comparator.reverseOrder());
+
+    // 不超过该长度的联想前缀命中课程多，排序结果缓存在索引中
+    private static final int CACHED_PREFIX_LENGTH = 2;
+
+    private static final class Index {
+        final Map<String, Entry> courses = new HashMap<>();
+        final Map<String, Set<String>> postings = new HashMap<>();
+        final RadixTrie trie = new RadixTrie();
+        // 短前缀的联想结果（按上限条数排好序），任何写入都会清空；查询在读锁下并发填充
+        final Map<String, List<Entry>> shortPrefixCache = new ConcurrentHashMap<>();
+
+        void put(Course course) {
+            remove(course.getId());
+            shortPrefixCache.clear();
+            Entry entry = new Entry(course);
+            courses.put(course.getId(), entry);
+            for (String gram : entry.grams) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(course.getId());
+            }
+            for (String key : entry.prefixKeys) {
+                trie.add(key, course.getId());
+            }
+        }
+
+        void remove(String courseId) {
+            Entry entry = courses.remove(courseId);
+            if (entry == null) {
+                return;
+            }
+            shortPrefixCache.clear();
+            for (String gram : entry.grams) {
+                Set<String> ids = postings.get(gram);
+                if (ids != null) {
+                    ids.remove(courseId);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            for (String key : entry.prefixKeys) {
+                trie.remove(key, courseId);
+            }
+        }
+
+        List<CourseSummary> suggest(String prefix, int limit, int maxLimit) {
+            List<Entry> ranked = prefix.length() <= CACHED_PREFIX_LENGTH
+                    ? shortPrefixCache.computeIfAbsent(prefix, p -> topByRemainingSeats(p, maxLimit))
+                    : topByRemainingSeats(prefix, limit);
+
+            List<CourseSummary> result = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (int i = 0; i < ranked.size() && i < limit; i++) {
+                result.add(ranked.get(i).summary());
+            }
+            return result;
+        }
+
+        /**
+         * 小顶堆保留剩余容量最多的 k 门课程，堆顶是当前入选中排名最低的一门
+         */
+        private List<Entry> topByRemainingSeats(String prefix, int limit) {
+            Set<String> seen = new HashSet<>();
+            PriorityQueue<Entry> top = new PriorityQueue<>(limit + 1, BY_REMAINING_SEATS);
+            trie.forEachWithPrefix(prefix, courseId -> {
+                if (!seen.add(courseId)) {
+                    return;
+                }
+                Entry entry = courses.get(courseId);
+                if (top.size() < limit) {
+                    top.add(entry);
+                } else if (BY_REMAINING_SEATS.compare(entry, top.peek()) > 0) {
+                    top.poll();
+                    top.add(entry);
+                }
+            });
+
+            List<Entry> ranked = new ArrayList<>(top);
+            ranked.sort(BY_REMAINING_SEATS.reversed());
+            return ranked;
+        }
+
+        List<Course> search(String query, int limit) {
+            List<Hit> matched = new ArrayList<>();
+            for (String courseId : candidates(query)) {
+                Hit hit = courses.get(courseId).match(query);
+                if (hit != null) {
+                    matched.add(hit);
+                }
+            }
+            matched.sort(RANKING);
+
+            List<Course> result = new ArrayList<>(Math.min(limit, matched.size()));
+            for (int i = 0; i < matched.size() && i < limit; i++) {
+                result.add(matched.get(i).entry().course);
+            }
+            return result;
+        }
+
+        /**
+         * 候选集：查询词所有 gram 倒排表的交集，从最短的倒排表开始求交
+         */
+        private Collection<String> candidates(String query) {
+            Set<String> queryGrams = new HashSet<>();
+            if (query.length() == 1) {
+                queryGrams.add(query);
+            } else {
+                for (int i = 0; i + 1 < query.length(); i++) {
+                    queryGrams.add(query.substring(i, i + 2));
+                }
+            }
+
+            List<Set<String>> lists = new ArrayList<>(queryGrams.size());
+            for (String gram : queryGrams) {
+                Set<String> ids = postings.get(gram);
+                if (ids == null) {
+                    return List.of();
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            Set<String> result = new HashSet<>(lists.get(0));
+            for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                result.retainAll(lists.get(i));
+            }
+            return result;
+        }
+    }
+}
@@ -1,36 +1,123 @@
 package com.zjgsu.obl.catalog_service.service;
 
+import com.zjgsu.obl.catalog_service.common.CursorPage;
+import com.zjgsu.obl.catalog_service.dto.CourseSummary;
+import com.zjgsu.obl.catalog_service.dto.SeatEvent;
 import com.zjgsu.obl.catalog_service.exception.BusinessException;
 import com.zjgsu.obl.catalog_service.exception.ResourceNotFoundException;
+import com.zjgsu.obl.catalog_service.model.AppliedSeatEvent;
 import com.zjgsu.obl.catalog_service.model.Course;
 import com.zjgsu.obl.catalog_service.model.Instructor;
 import com.zjgsu.obl.catalog_service.model.ScheduleSlot;
+import com.zjgsu.obl.catalog_service.repository.AppliedSeatEventRepository;
 import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import com.zjgsu.obl.catalog_service.repository.CourseSpecifications;
 
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
+// 查询方法使用只读事务：开启读写分离时走从库，Hibernate 也不再在提交前 flush 和做脏检查
 @Service
 @Transactional
 public class CourseService {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AppliedSeatEventRepository appliedSeatEventRepository;
+
+    // 已应用事件ID的保留时间，应远长于选课服务 outbox 的最长重试时间
+    @Value("${catalog.seat-events.retention:1d}")
+    private Duration seatEventRetention;
+
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(CourseService.class);
 
+    @Transactional(readOnly = true)
     public List<Course> findAll() {
         return courseRepository.findAll();
     }
 
+    /**
+     * 游标分页查询课程，按主键升序
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Course> findPage(String cursor, int size) {
+        List<Course> fetched = courseRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decode(cursor), Limit.of(size + 1));
+        return CursorPage.of(fetched, size, Course::getId);
+    }
+
+    /**
+     * 偏移量分页查询课程（兼容旧客户端，翻页越深越慢）
+     */
+    @Transactional(readOnly = true)
+    public List<Course> findPage(int page, int size) {
+        return courseRepository.findAll(PageRequest.of(page, size, Sort.by("id"))).getContent();
+    }
+
+    /**
+     * 游标分页查询课程摘要
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<CourseSummary> findSummaryPage(String cursor, int size) {
+        List<CourseSummary> fetched = courseRepository.findSummariesAfter(CursorPage.decode(cursor), Limit.of(size + 1));
+        return CursorPage.of(fetched, size, CourseSummary::id);
+    }
+
+    /**
+     * 偏移量分页查询课程摘要
+     */
+    @Transactional(readOnly = true)
+    public List<CourseSummary> findSummaryPage(int page, int size) {
+        return courseRepository.findSummaries(PageRequest.of(page, size, Sort.by("id")));
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Course> getById(String id) {
         return courseRepository.findById(id);
     }
 
+    /**
+     * 按ID批量查询课程，一次 IN 查询返回，不存在的ID直接忽略
+     */
+    @Transactional(readOnly = true)
+    public List<Course> findByIds(Collection<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return courseRepository.findAllById(ids);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Course> getByCode(String code) {
         return courseRepository.findByCourseCode(code);
     }
@@ -57,7 +144,10 @@ public class CourseService {
             throw new IllegalArgumentException("课程代码已存在");
         }
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        seatLedger.reset(savedCourse.getId(), savedCourse.getCapacity(), savedCourse.getEnrolledCount());
+        courseSearchIndex.index(savedCourse);
+        return savedCourse;
     }
 
     public Course updateCourse(String id, Course courseUpdate) {
@@ -118,34 +208,272 @@ public class CourseService {
 
         if (courseUpdate.getCapacity() != null && courseUpdate.getCapacity() > 0) {
             existingCourse.setCapacity(courseUpdate.getCapacity());
+            seatLedger.updateCapacity(id, courseUpdate.getCapacity());
         }
 
-        return courseRepository.save(existingCourse);
+        Course savedCourse = courseRepository.save(existingCourse);
+        courseSearchIndex.index(savedCourse);
+        return savedCourse;
     }
 
     public boolean deleteCourse(String id){
         if (courseRepository.existsById(id)) {
             courseRepository.deleteById(id);
+            seatLedger.remove(id);
+            courseSearchIndex.remove(id);
             return true;
         } else {
             return false;
         }
     }
 
+    @Transactional(readOnly = true)
     public List<Course> findAvailableCourses() {
         return courseRepository.findAvailableCourses();
     }
 
-    public List<Course> findByTitleKeyword(String keyword) {
-        return courseRepository.findByTitleContainingIgnoreCase(keyword);
+    /**
+     * 按关键词搜索课程名称和课程代码：默认走内存 n-gram 索引，不访问数据库；
+     * 关闭索引时退回 LIKE 查询（只匹配课程名称）
+     * @param limit 返回条数，为空时取默认值
+     */
+    @Transactional(readOnly = true)
+    public List<Course> findByTitleKeyword(String keyword, Integer limit) {
+        if (courseSearchIndex.isEnabled()) {
+            return courseSearchIndex.search(keyword, limit);
+        }
+        return courseRepository.findByTitleContainingIgnoreCase(keyword).stream()
+                .limit(courseSearchIndex.resolveLimit(limit))
+                .toList();
+    }
+
+    /**
+     * 输入联想：默认走内存前缀树；关闭索引时退回课程代码/名称的前缀 LIKE 查询
+     * @param limit 返回条数，为空时取默认值
+     */
+    @Transactional(readOnly = true)
+    public List<CourseSummary> suggest(String prefix, Integer limit) {
+        if (courseSearchIndex.isEnabled()) {
+            return courseSearchIndex.suggest(prefix, limit);
+        }
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        return courseRepository.findSummariesByPrefix(prefix.trim(),
+                Limit.of(courseSearchIndex.resolveSuggestLimit(limit)));
     }
 
+    @Transactional(readOnly = true)
     public List<Course> findByInstructorId(String instructorId) {
         return courseRepository.findByInstructorId(instructorId);
     }
 
+    @Transactional(readOnly = true)
     public List<Course> findByMultipleCriteria(String code, String instructorId,String title) {
-        return courseRepository.findByMultipleCriteria(code, instructorId, title);
+        return courseRepository.findAll(CourseSpecifications.matching(code, instructorId, title));
+    }
+
+    /**
+     * 原子占座：由一条条件 UPDATE 完成容量检查和人数加一，并发选课不会丢失更新或超卖；
+     * 选课窗口模式下改为在内存座位账本中占座，由账本异步写回数据库。
+     * 本方法不开启外层事务，账本模式下不占用数据库连接
+     * @return true 占座成功；false 课程已满
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean reserveSeat(String courseId) {
+        if (seatLedger.isEnabled()) {
+            return seatLedger.reserve(courseId);
+        }
+        if (courseRepository.reserveSeat(courseId) == 1) {
+            return true;
+        }
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResourceNotFoundException("课程不存在: " + courseId);
+        }
+        logger.info("课程容量已满: id={}", courseId);
+        return false;
+    }
+
+    /**
+     * 批量占座：一次为同一门课程占 count 个座位，剩余座位不足时只占剩余的部分。
+     * 数据库模式下在单独的事务中先对课程行加锁再修改人数，与单个占座的条件 UPDATE 互斥；账本模式下不开启事务
+     * @return 实际占到的座位数，0 表示课程已满
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int reserveSeats(String courseId, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("占座数量必须大于0");
+        }
+        if (seatLedger.isEnabled()) {
+            return seatLedger.reserve(courseId, count);
+        }
+        return transactionTemplate.execute(status -> lockAndReserveSeats(courseId, count));
+    }
+
+    private int lockAndReserveSeats(String courseId, int count) {
+        Course course = courseRepository.findByIdForUpdate(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("课程不存在: " + courseId));
+        int granted = Math.min(count, course.getCapacity() - course.getEnrolledCount());
+        if (granted <= 0) {
+            logger.info("课程容量已满: id={}, requested={}", courseId, count);
+            return 0;
+        }
+        course.setEnrolledCount(course.getEnrolledCount() + granted);
+        return granted;
+    }
+
+    /**
+     * 批量释放座位（批量选课写入失败时归还已占的座位）
+     * @return 实际释放的座位数
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public int releaseSeats(String courseId, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("释放数量必须大于0");
+        }
+        if (seatLedger.isEnabled()) {
+            return seatLedger.release(courseId, count);
+        }
+        return transactionTemplate.execute(status -> lockAndReleaseSeats(courseId, count));
+    }
+
+    private int lockAndReleaseSeats(String courseId, int count) {
+        Course course = courseRepository.findByIdForUpdate(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("课程不存在: " + courseId));
+        int releasedSeats = Math.min(count, course.getEnrolledCount());
+        course.setEnrolledCount(course.getEnrolledCount() - releasedSeats);
+        return releasedSeats;
+    }
+
+    /**
+     * 批量应用多门课程的已选人数变化（选课服务把一小段时间内的占座、释放按课程合并后一次提交），
+     * 数据库模式下全部在一个事务中完成，每门课程只写一次（账本模式下不开启事务）。正数为占座，剩余座位不足时只占剩余的部分；负数为释放，最多释放到 0
+     * @return 每门课程实际变化的人数，不存在的课程不出现在结果中
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Integer> applySeatDeltas(Map<String, Integer> deltas) {
+        if (deltas.values().stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("人数变化不能为空");
+        }
+        if (seatLedger.isEnabled()) {
+            Map<String, Integer> applied = new LinkedHashMap<>();
+            deltas.forEach((courseId, delta) -> {
+                try {
+                    applied.put(courseId, delta >= 0
+                            ? seatLedger.reserve(courseId, delta)
+                            : -seatLedger.release(courseId, -delta));
+                } catch (ResourceNotFoundException e) {
+                    logger.warn("批量人数变化中的课程不存在: id={}", courseId);
+                }
+            });
+            return applied;
+        }
+        return transactionTemplate.execute(status -> lockAndApplySeatDeltas(deltas));
+    }
+
+    private Map<String, Integer> lockAndApplySeatDeltas(Map<String, Integer> deltas) {
+        Map<String, Integer> applied = new LinkedHashMap<>();
+        for (Course course : courseRepository.findAllByIdForUpdate(deltas.keySet())) {
+            int delta = deltas.get(course.getId());
+            int enrolled = course.getEnrolledCount();
+            int change = delta >= 0
+                    ? Math.min(delta, Math.max(0, course.getCapacity() - enrolled))
+                    : -Math.min(-delta, enrolled);
+            if (change != 0) {
+                course.setEnrolledCount(enrolled + change);
+            }
+            if (change != delta) {
+                logger.info("课程人数变化未全部应用: id={}, requested={}, applied={}", course.getId(), delta, change);
+            }
+            applied.put(course.getId(), change);
+        }
+        return applied;
+    }
+
+    /**
+     * 应用选课服务 outbox 投递的人数变化事件：已应用过的事件跳过，其余按课程合并后与 {@link #applySeatDeltas} 相同地应用。
+     * 事件ID与人数变化在同一个事务中写入，选课服务没收到响应而重复投递时不会重复修改人数；
+     * 账本模式下内存计数不随事务回滚，先提交事件ID再修改账本
+     * @return 每门课程实际变化的人数（事件都已应用过的课程为 0），不存在的课程不出现在结果中
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Integer> applySeatEvents(List<SeatEvent> events) {
+        if (events.stream().anyMatch(event -> event.id() == null || event.courseId() == null || event.delta() == null)) {
+            throw new IllegalArgumentException("人数变化事件的ID、课程和变化量不能为空");
+        }
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        Map<String, Integer> applied;
+        if (seatLedger.isEnabled()) {
+            deltas.putAll(transactionTemplate.execute(status -> recordNewEvents(events)));
+            applied = applySeatDeltas(deltas);
+        } else {
+            applied = transactionTemplate.execute(status -> {
+                deltas.putAll(recordNewEvents(events));
+                return deltas.isEmpty() ? new LinkedHashMap<>() : lockAndApplySeatDeltas(deltas);
+            });
+        }
+        // 事件都已应用过的课程本次不再变化
+        for (SeatEvent event : events) {
+            if (!deltas.containsKey(event.courseId())) {
+                applied.putIfAbsent(event.courseId(), 0);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * 记录尚未应用过的事件，返回这些事件按课程合并后的人数变化。
+     * 并发投递同一事件时插入主键冲突，整个事务回滚，由选课服务稍后重试
+     */
+    private Map<String, Integer> recordNewEvents(List<SeatEvent> events) {
+        Set<String> seen = new HashSet<>(appliedSeatEventRepository.findAppliedIds(
+                events.stream().map(SeatEvent::id).toList()));
+        int duplicates = seen.size();
+        LocalDateTime now = LocalDateTime.now();
+        List<AppliedSeatEvent> fresh = new ArrayList<>();
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        for (SeatEvent event : events) {
+            if (seen.add(event.id())) {
+                fresh.add(new AppliedSeatEvent(event.id(), now));
+                deltas.merge(event.courseId(), event.delta(), Integer::sum);
+            }
+        }
+        appliedSeatEventRepository.saveAll(fresh);
+        if (duplicates > 0) {
+            logger.info("跳过已应用的人数变化事件: duplicates={}, applied={}", duplicates, fresh.size());
+        }
+        return deltas;
+    }
+
+    /**
+     * 定期清理超过保留期的已应用事件ID
+     */
+    @Scheduled(initialDelayString = "${catalog.seat-events.purge-interval-ms:3600000}",
+            fixedDelayString = "${catalog.seat-events.purge-interval-ms:3600000}")
+    public void purgeAppliedSeatEvents() {
+        int purged = appliedSeatEventRepository.deleteAppliedBefore(LocalDateTime.now().minus(seatEventRetention));
+        if (purged > 0) {
+            logger.info("清理已应用的人数变化事件: {}", purged);
+        }
+    }
+
+    /**
+     * 原子释放座位：已选人数减一
+     * @return true 释放成功；false 已选人数已为0
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean releaseSeat(String courseId) {
+        if (seatLedger.isEnabled()) {
+            return seatLedger.release(courseId);
+        }
+        if (courseRepository.releaseSeat(courseId) == 1) {
+            return true;
+        }
+        if (!courseRepository.existsById(courseId)) {
+            throw new ResourceNotFoundException("课程不存在: " + courseId);
+        }
+        logger.warn("释放座位时已选人数已为0: id={}", courseId);
+        return false;
     }
 
     @Transactional
@@ -186,6 +514,12 @@ public class CourseService {
         }
 
         Course updatedCourse = courseRepository.save(existingCourse);
+        if (updates.containsKey("enrolledCount")) {
+            seatLedger.reset(courseId, updatedCourse.getCapacity(), updatedCourse.getEnrolledCount());
+        } else {
+            seatLedger.updateCapacity(courseId, updatedCourse.getCapacity());
+        }
+        courseSearchIndex.index(updatedCourse);
         logger.info("课程部分更新完成: id={}", courseId);
         return updatedCourse;
     }
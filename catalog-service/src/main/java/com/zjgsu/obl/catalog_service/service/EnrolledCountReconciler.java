@@ -0,0 +1,203 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.client.EnrollmentClient;
+import com.zjgsu.obl.catalog_service.common.TimeOrderedUuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已选人数校准：定时按主键分页扫描课程，向 enrollment-service 批量查询每页课程应有的人数
+ * （活跃选课数减去尚未投递的人数变化），修正有偏差的 enrolled_count。
+ *
+ * 每次最多处理 pages-per-run 页，下次从上次停下的位置继续，扫到末尾后从头开始。
+ * 读课程不加锁；修正按页批量执行，每条 UPDATE 自动提交且带上读到的旧值作为条件，只短暂锁住被修正的行，
+ * 期间人数有变化的课程不修改。选课进行中（已占座、选课记录未写入）也会短暂出现偏差，
+ * 所以同一课程要连续两次扫描到相同的偏差才修正。选课窗口模式下修正的是内存座位账本，由写回任务落库
+ */
+@Component
+public class EnrolledCountReconciler {
+    private static final Logger logger = LoggerFactory.getLogger(EnrolledCountReconciler.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EnrollmentClient enrollmentClient;
+
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Value("${catalog.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog.reconciliation.page-size:200}")
+    private int pageSize;
+
+    @Value("${catalog.reconciliation.pages-per-run:50}")
+    private int pagesPerRun;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    // 下一页从这门课程之后开始，null 表示从头开始
+    private String cursor;
+
+    // 上次扫描到的偏差，再次扫描到相同的偏差时才修正
+    private final Map<String, Drift> suspects = new ConcurrentHashMap<>();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong drifted = new AtomicLong();
+    private final AtomicLong corrected = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Scheduled(initialDelayString = "${catalog.reconciliation.interval-ms:300000}",
+            fixedDelayString = "${catalog.reconciliation.interval-ms:300000}")
+    public void reconcile() {
+        if (!enabled || !runLock.tryLock()) {
+            return;
+        }
+        try {
+            runs.incrementAndGet();
+            for (int page = 0; page < pagesPerRun; page++) {
+                if (!reconcilePage()) {
+                    cursor = null;
+                    passes.incrementAndGet();
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // 停在出错的页，下次从这一页重试
+            failures.incrementAndGet();
+            logger.warn("已选人数校准失败，下次继续: cursor={}, error={}", cursor, e.getMessage());
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * 校准一页课程
+     * @return 是否还有下一页
+     */
+    private boolean reconcilePage() {
+        Map<String, Integer> stored = loadPage();
+        if (stored.isEmpty()) {
+            return false;
+        }
+        if (seatLedger.isEnabled()) {
+            // 账本中的人数才是最新的
+            stored.replaceAll((courseId, count) -> {
+                Integer inLedger = seatLedger.enrolledCount(courseId);
+                return inLedger == null ? count : inLedger;
+            });
+        }
+
+        Map<String, Integer> expected = enrollmentClient.expectedEnrolledCounts(stored.keySet());
+        Map<String, Drift> confirmed = new LinkedHashMap<>();
+        stored.forEach((courseId, count) -> {
+            Integer target = expected.get(courseId);
+            if (target == null || count.equals(Math.max(target, 0))) {
+                suspects.remove(courseId);
+                return;
+            }
+            Drift drift = new Drift(count, Math.max(target, 0));
+            if (drift.equals(suspects.put(courseId, drift))) {
+                confirmed.put(courseId, drift);
+            } else {
+                drifted.incrementAndGet();
+            }
+        });
+        checked.addAndGet(stored.size());
+        correct(confirmed);
+
+        List<String> ids = new ArrayList<>(stored.keySet());
+        cursor = ids.get(ids.size() - 1);
+        return stored.size() == pageSize;
+    }
+
+    private Map<String, Integer> loadPage() {
+        Map<String, Integer> page = new LinkedHashMap<>();
+        RowCallbackHandler handler = rs -> {
+            page.put(TimeOrderedUuid.fromBytes(rs.getBytes("id")), rs.getInt("enrolled_count"));
+        };
+        if (cursor == null) {
+            jdbcTemplate.query("SELECT id, enrolled_count FROM courses ORDER BY id LIMIT ?", handler, pageSize);
+        } else {
+            jdbcTemplate.query("SELECT id, enrolled_count FROM courses WHERE id > ? ORDER BY id LIMIT ?", handler,
+                    TimeOrderedUuid.toBytes(cursor), pageSize);
+        }
+        return page;
+    }
+
+    private void correct(Map<String, Drift> confirmed) {
+        if (confirmed.isEmpty()) {
+            return;
+        }
+        List<String> courseIds = new ArrayList<>(confirmed.keySet());
+        boolean[] applied = new boolean[courseIds.size()];
+        if (seatLedger.isEnabled()) {
+            for (int i = 0; i < courseIds.size(); i++) {
+                Drift drift = confirmed.get(courseIds.get(i));
+                applied[i] = seatLedger.correct(courseIds.get(i), drift.stored(), drift.expected());
+            }
+        } else {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> batchArgs = new ArrayList<>();
+            for (String courseId : courseIds) {
+                Drift drift = confirmed.get(courseId);
+                batchArgs.add(new Object[]{drift.expected(), now, TimeOrderedUuid.toBytes(courseId), drift.stored()});
+            }
+            int[] rows = jdbcTemplate.batchUpdate(
+                    "UPDATE courses SET enrolled_count = ?, updated_at = ? WHERE id = ? AND enrolled_count = ?", batchArgs);
+            for (int i = 0; i < rows.length; i++) {
+                // 驱动合并执行批量语句时可能只返回 SUCCESS_NO_INFO（-2），按已修正处理
+                applied[i] = rows[i] != 0;
+            }
+        }
+
+        for (int i = 0; i < courseIds.size(); i++) {
+            String courseId = courseIds.get(i);
+            Drift drift = suspects.remove(courseId);
+            if (applied[i]) {
+                corrected.incrementAndGet();
+                logger.warn("校准课程已选人数: id={}, stored={}, actual={}", courseId, drift.stored(), drift.expected());
+            } else {
+                conflicts.incrementAndGet();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("runs", runs.get());
+        stats.put("passes", passes.get());
+        stats.put("checked", checked.get());
+        stats.put("drifted", drifted.get());
+        stats.put("suspects", suspects.size());
+        stats.put("corrected", corrected.get());
+        stats.put("conflicts", conflicts.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    private record Drift(int stored, int expected) {
+    }
+}
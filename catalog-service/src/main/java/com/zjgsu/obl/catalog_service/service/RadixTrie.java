@@ -0,0 +1,167 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 压缩前缀树（radix trie）：只有一个子节点的链路合并为一条边，每个键对应一组值（课程ID）。
+ * 非线程安全，由 {@link CourseSearchIndex} 的读写锁保护
+ */
+final class RadixTrie {
+    private final Node root = new Node("");
+
+    private int size;
+
+    private static final class Node {
+        String label;
+        final Map<Character, Node> children = new HashMap<>(4);
+        Set<String> values;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        boolean hasValues() {
+            return values != null && !values.isEmpty();
+        }
+    }
+
+    void add(String key, String value) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                node = child;
+                break;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // 在公共前缀处拆分边
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            i += common;
+        }
+
+        if (node.values == null) {
+            node.values = new HashSet<>(2);
+        }
+        if (node.values.add(value)) {
+            size++;
+        }
+    }
+
+    void remove(String key, String value) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            path.push(node);
+            node = child;
+            i += child.label.length();
+        }
+        if (node.values == null || !node.values.remove(value)) {
+            return;
+        }
+        size--;
+
+        // 删除空叶子，并把只剩一个子节点的无值节点与子节点合并
+        while (node != root && !node.hasValues()) {
+            Node parent = path.pop();
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+                node = parent;
+            } else {
+                if (node.children.size() == 1) {
+                    Node only = node.children.values().iterator().next();
+                    node.label = node.label + only.label;
+                    node.values = only.values;
+                    node.children.clear();
+                    node.children.putAll(only.children);
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * 遍历以 prefix 开头的所有键对应的值（同一个值可能出现多次）
+     */
+    void forEachWithPrefix(String prefix, Consumer<String> action) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return;
+            }
+            int remaining = prefix.length() - i;
+            if (child.label.length() >= remaining) {
+                if (!child.label.startsWith(prefix.substring(i))) {
+                    return;
+                }
+            } else if (!prefix.startsWith(child.label, i)) {
+                return;
+            }
+            node = child;
+            i += child.label.length();
+        }
+
+        List<Node> stack = new ArrayList<>();
+        stack.add(node);
+        while (!stack.isEmpty()) {
+            Node current = stack.remove(stack.size() - 1);
+            if (current.values != null) {
+                current.values.forEach(action);
+            }
+            stack.addAll(current.children.values());
+        }
+    }
+
+    /**
+     * 键值对数量
+     */
+    int size() {
+        return size;
+    }
+
+    int nodeCount() {
+        int count = 0;
+        List<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node current = stack.remove(stack.size() - 1);
+            count++;
+            stack.addAll(current.children.values());
+        }
+        return count;
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,390 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.client.EnrollmentClient;
+import com.zjgsu.obl.catalog_service.common.TimeOrderedUuid;
+import com.zjgsu.obl.catalog_service.exception.BusinessException;
+import com.zjgsu.obl.catalog_service.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 选课窗口模式下的内存座位账本
+ *
+ * 开启 catalog.registration-window.enabled 后，每门课程的已选人数保存在内存中的无锁计数器里，
+ * 占座/释放只做一次 CAS 并在内存中检查容量；由后台任务定期把有变化的课程批量写回 enrolled_count。
+ * 内存计数是权威值，因此该模式只适用于单实例部署的 catalog-service。
+ *
+ * 重启时先从数据库加载上次写回的人数，应用启动完成后再向 enrollment-service 查询每门课程的活跃选课数重新计算，
+ * 以覆盖崩溃前尚未写回的变化（选课记录只在占座成功后才会写入，所以活跃选课数就是真实人数）。
+ * 恢复完成前占座/释放最多等待 recovery-wait，避免在恢复前的人数上占座后又被恢复覆盖。
+ * 课程新建、修改和删除在事务提交后才同步到账本，回滚的修改不会留在内存中。
+ */
+@Component
+public class SeatLedger {
+    private static final Logger logger = LoggerFactory.getLogger(SeatLedger.class);
+
+    @Value("${catalog.registration-window.enabled:false}")
+    private boolean enabled;
+
+    @Value("${catalog.registration-window.recovery:true}")
+    private boolean recoveryEnabled;
+
+    @Value("${catalog.registration-window.recovery-wait:10s}")
+    private Duration recoveryWait;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EnrollmentClient enrollmentClient;
+
+    private final Map<String, SeatCounter> counters = new ConcurrentHashMap<>();
+
+    // 启动恢复完成后归零，之前的占座/释放在此等待
+    private volatile CountDownLatch recovery = new CountDownLatch(0);
+
+    // 保证同一时刻只有一个写回任务在执行
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启动时从数据库加载所有课程的人数，在 Web 服务开始接收请求之前完成；需要恢复时在启动完成后进行
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+
+        recovery = new CountDownLatch(recoveryEnabled ? 1 : 0);
+        jdbcTemplate.query("SELECT id, capacity, enrolled_count FROM courses", rs -> {
+            counters.put(TimeOrderedUuid.fromBytes(rs.getBytes("id")),
+                    new SeatCounter(rs.getInt("capacity"), rs.getInt("enrolled_count")));
+        });
+        logger.info("选课窗口模式已开启，加载课程座位数: {}", counters.size());
+    }
+
+    /**
+     * 应用启动完成后恢复人数：调用选课服务受 HTTP 超时限制，不阻塞启动；失败时沿用数据库中的人数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverAfterStartup() {
+        if (!enabled || recovery.getCount() == 0) {
+            return;
+        }
+        try {
+            recover();
+        } finally {
+            recovery.countDown();
+        }
+    }
+
+    /**
+     * 按 enrollment-service 中的活跃选课数重新计算内存人数（按课程分组批量统计），有差异的课程在下次写回时落库
+     */
+    private void recover() {
+        Map<String, Integer> expected;
+        try {
+            expected = enrollmentClient.expectedEnrolledCounts(counters.keySet());
+        } catch (Exception e) {
+            logger.warn("选课服务不可用，使用数据库中的人数: error={}", e.getMessage());
+            return;
+        }
+        int corrected = 0;
+        for (Map.Entry<String, SeatCounter> entry : counters.entrySet()) {
+            Integer actual = expected.get(entry.getKey());
+            SeatCounter counter = entry.getValue();
+            if (actual != null && counter.enrolled.get() != actual) {
+                logger.warn("恢复课程人数: id={}, stored={}, actual={}",
+                        entry.getKey(), counter.enrolled.get(), actual);
+                counter.enrolled.set(actual);
+                corrected++;
+            }
+        }
+        logger.info("课程人数恢复完成，修正课程数: {}", corrected);
+    }
+
+    /**
+     * 内存占座
+     * @return true 占座成功；false 课程已满
+     */
+    public boolean reserve(String courseId) {
+        if (counter(courseId).tryReserve()) {
+            reserved.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 内存批量占座：剩余座位不足时只占剩余的部分
+     * @return 实际占到的座位数，0 表示课程已满
+     */
+    public int reserve(String courseId, int count) {
+        int granted = counter(courseId).tryReserve(count);
+        reserved.addAndGet(granted);
+        if (granted < count) {
+            rejected.addAndGet(count - granted);
+        }
+        return granted;
+    }
+
+    /**
+     * 内存释放座位
+     * @return true 释放成功；false 已选人数已为0
+     */
+    public boolean release(String courseId) {
+        if (counter(courseId).tryRelease()) {
+            released.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 内存批量释放座位
+     * @return 实际释放的座位数
+     */
+    public int release(String courseId, int count) {
+        int releasedSeats = counter(courseId).tryRelease(count);
+        released.addAndGet(releasedSeats);
+        return releasedSeats;
+    }
+
+    /**
+     * 课程新建或人数被直接修改后，以数据库中的值重置账本
+     */
+    public void reset(String courseId, int capacity, int enrolledCount) {
+        afterCommit(() -> counters.put(courseId, new SeatCounter(capacity, enrolledCount)));
+    }
+
+    /**
+     * 课程容量修改后同步到账本，保留内存中的已选人数
+     */
+    public void updateCapacity(String courseId, int capacity) {
+        afterCommit(() -> {
+            SeatCounter counter = counters.get(courseId);
+            if (counter != null) {
+                counter.capacity = capacity;
+            }
+        });
+    }
+
+    /**
+     * 账本中课程当前的已选人数，课程尚未加载时返回 null
+     */
+    public Integer enrolledCount(String courseId) {
+        SeatCounter counter = counters.get(courseId);
+        return counter == null ? null : counter.enrolled.get();
+    }
+
+    /**
+     * 校准已选人数：仅当内存人数仍为 expected 时改为 actual，期间有占座/释放则放弃
+     * @return 是否已修改
+     */
+    public boolean correct(String courseId, int expected, int actual) {
+        SeatCounter counter = counters.get(courseId);
+        return counter != null && counter.enrolled.compareAndSet(expected, actual);
+    }
+
+    public void remove(String courseId) {
+        afterCommit(() -> counters.remove(courseId));
+    }
+
+    /**
+     * 在当前事务提交后修改账本，没有事务时立即修改
+     */
+    private void afterCommit(Runnable change) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    /**
+     * 写回任务：把自上次写回以来有变化的课程人数批量更新到数据库
+     */
+    @Scheduled(fixedDelayString = "${catalog.registration-window.flush-interval-ms:200}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            List<String> courseIds = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+            List<Object[]> batchArgs = new ArrayList<>();
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            counters.forEach((courseId, counter) -> {
+                int current = counter.enrolled.get();
+                if (current != counter.flushed) {
+                    courseIds.add(courseId);
+                    counts.add(current);
+                    batchArgs.add(new Object[]{current, now, TimeOrderedUuid.toBytes(courseId)});
+                }
+            });
+            if (batchArgs.isEmpty()) {
+                return;
+            }
+
+            jdbcTemplate.batchUpdate("UPDATE courses SET enrolled_count = ?, updated_at = ? WHERE id = ?", batchArgs);
+            for (int i = 0; i < courseIds.size(); i++) {
+                SeatCounter counter = counters.get(courseIds.get(i));
+                if (counter != null) {
+                    counter.flushed = counts.get(i);
+                }
+            }
+            flushedRows.addAndGet(batchArgs.size());
+            logger.debug("座位账本写回课程数: {}", batchArgs.size());
+        } catch (Exception e) {
+            logger.error("座位账本写回失败，将在下次重试: {}", e.getMessage());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 账本统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("courses", counters.size());
+        stats.put("reserved", reserved.get());
+        stats.put("rejected", rejected.get());
+        stats.put("released", released.get());
+        stats.put("flushedRows", flushedRows.get());
+        return stats;
+    }
+
+    private SeatCounter counter(String courseId) {
+        awaitRecovery();
+        SeatCounter counter = counters.get(courseId);
+        if (counter != null) {
+            return counter;
+        }
+        // 在映射之外查询数据库：computeIfAbsent 查询期间会锁住同一个桶，阻塞其他课程的占座
+        SeatCounter loaded = loadCounter(courseId);
+        if (loaded == null) {
+            throw new ResourceNotFoundException("课程不存在: " + courseId);
+        }
+        SeatCounter existing = counters.putIfAbsent(courseId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void awaitRecovery() {
+        try {
+            if (!recovery.await(recoveryWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new BusinessException("座位账本正在恢复，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("座位账本正在恢复，请稍后重试");
+        }
+    }
+
+    private SeatCounter loadCounter(String courseId) {
+        List<SeatCounter> rows = jdbcTemplate.query(
+                "SELECT capacity, enrolled_count FROM courses WHERE id = ?",
+                (rs, rowNum) -> new SeatCounter(rs.getInt("capacity"), rs.getInt("enrolled_count")),
+                TimeOrderedUuid.toBytes(courseId));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private static final class SeatCounter {
+        private final AtomicInteger enrolled;
+        private volatile int capacity;
+        // 最近一次写回数据库的人数，只由写回任务修改
+        private volatile int flushed;
+
+        SeatCounter(int capacity, int enrolled) {
+            this.capacity = capacity;
+            this.enrolled = new AtomicInteger(enrolled);
+            this.flushed = enrolled;
+        }
+
+        boolean tryReserve() {
+            return tryReserve(1) == 1;
+        }
+
+        int tryReserve(int count) {
+            while (true) {
+                int current = enrolled.get();
+                int granted = Math.min(count, capacity - current);
+                if (granted <= 0) {
+                    return 0;
+                }
+                if (enrolled.compareAndSet(current, current + granted)) {
+                    return granted;
+                }
+            }
+        }
+
+        boolean tryRelease() {
+            return tryRelease(1) == 1;
+        }
+
+        int tryRelease(int count) {
+            while (true) {
+                int current = enrolled.get();
+                int releasedSeats = Math.min(count, current);
+                if (releasedSeats <= 0) {
+                    return 0;
+                }
+                if (enrolled.compareAndSet(current, current - releasedSeats)) {
+                    return releasedSeats;
+                }
+            }
+        }
+    }
+}
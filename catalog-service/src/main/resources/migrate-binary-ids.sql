@@ -0,0 +1,12 @@
+-- 课程主键 VARCHAR(36) -> BINARY(16)
+-- 停止 catalog-service 并备份后执行一次。UUID_TO_BIN 不交换时间字段，BIN_TO_UUID(id) 与原来的字符串相同，
+-- 选课服务 enrollments.course_id 中保存的课程ID不需要修改；已有记录保持原来的随机顺序，之后新建的课程按时间递增
+USE catalog_db;
+
+-- 先改成 VARBINARY 保留原字节，再原地转换为 16 字节，最后收紧为 BINARY(16)
+ALTER TABLE courses MODIFY id VARBINARY(36) NOT NULL;
+UPDATE courses SET id = UUID_TO_BIN(id) WHERE LENGTH(id) = 36;
+ALTER TABLE courses MODIFY id BINARY(16) NOT NULL;
+
+-- 检查：应为 0
+SELECT COUNT(*) AS unconverted FROM courses WHERE LENGTH(id) <> 16;
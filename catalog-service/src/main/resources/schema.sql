@@ -12,7 +12,7 @@ USE catalog_db;
 
 -- 更新的 schema.sql
 CREATE TABLE IF NOT EXISTS courses (
-    id VARCHAR(36) PRIMARY KEY,
+    id BINARY(16) PRIMARY KEY,  -- UUIDv7，应用中为 36 位字符串；旧库升级见 migrate-binary-ids.sql
     course_code VARCHAR(50) UNIQUE NOT NULL,
     title VARCHAR(255) NOT NULL,
     capacity INT NOT NULL DEFAULT 0,
@@ -25,11 +25,19 @@ CREATE TABLE IF NOT EXISTS courses (
     schedule_end_time VARCHAR(10),
     expected_attendance INT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_courses_instructor_id (instructor_id)
+);
+
+-- 已应用的选课服务 outbox 事件ID，重复投递的事件不再修改人数
+CREATE TABLE IF NOT EXISTS applied_seat_events (
+    id BINARY(16) PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL,
+    INDEX idx_applied_seat_events_applied_at (applied_at)
 );
 
 INSERT  INTO courses (id, course_code, title, capacity, enrolled_count, instructor_id, instructor_name, instructor_email, schedule_day, schedule_start_time, schedule_end_time, expected_attendance) VALUES
-(UUID(), 'CS101', '计算机科学导论', 60, 0, 'T001', '张教授', 'zhang@example.edu.cn', 'MONDAY', '08:00', '10:00', 50),
-(UUID(), 'MATH201', '高等数学', 50, 0, 'T002', '李教授', 'li@example.edu.cn', 'TUESDAY', '10:00', '12:00', 40),
-(UUID(), 'ENG101', '大学英语', 80, 0, 'T003', '王老师', 'wang@example.edu.cn', 'WEDNESDAY', '14:00', '16:00', 60);
+(UUID_TO_BIN(UUID()), 'CS101', '计算机科学导论', 60, 0, 'T001', '张教授', 'zhang@example.edu.cn', 'MONDAY', '08:00', '10:00', 50),
+(UUID_TO_BIN(UUID()), 'MATH201', '高等数学', 50, 0, 'T002', '李教授', 'li@example.edu.cn', 'TUESDAY', '10:00', '12:00', 40),
+(UUID_TO_BIN(UUID()), 'ENG101', '大学英语', 80, 0, 'T003', '王老师', 'wang@example.edu.cn', 'WEDNESDAY', '14:00', '16:00', 60);
 
@@ -0,0 +1,76 @@
+package com.zjgsu.obl.catalog_service.client;
+
+import com.zjgsu.obl.catalog_service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * 应有人数：课程按 batch-size 分块调用选课服务，活跃选课数减去尚未投递的人数变化；
+ * 选课服务出错或返回的数据无效时抛出业务异常，由调用方放弃本轮校准
+ */
+class EnrollmentClientTest {
+    private static final String URL = "http://enrollment/api/enrollments/active-counts";
+
+    private EnrollmentClient enrollmentClient;
+
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        enrollmentClient = new EnrollmentClient();
+        ReflectionTestUtils.setField(enrollmentClient, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(enrollmentClient, "enrollmentServiceUrl", "http://enrollment");
+        ReflectionTestUtils.setField(enrollmentClient, "batchSize", 2);
+    }
+
+    @Test
+    void subtractsPendingDeltasChunkByChunk() {
+        server.expect(requestTo(URL)).andExpect(method(HttpMethod.POST))
+                .andExpect(content().json("[\"a\",\"b\"]"))
+                .andRespond(withSuccess("{\"code\":200,\"message\":\"Success\",\"data\":["
+                        + "{\"courseId\":\"a\",\"active\":10,\"pending\":-2},"
+                        + "{\"courseId\":\"b\",\"active\":3,\"pending\":0}]}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo(URL)).andExpect(content().json("[\"c\"]"))
+                .andRespond(withSuccess("{\"code\":200,\"message\":\"Success\",\"data\":["
+                        + "{\"courseId\":\"c\",\"active\":5}]}", MediaType.APPLICATION_JSON));
+
+        assertThat(enrollmentClient.expectedEnrolledCounts(List.of("a", "b", "c")))
+                .containsEntry("a", 12)
+                .containsEntry("b", 3)
+                .containsEntry("c", 5)
+                .hasSize(3);
+        server.verify();
+    }
+
+    @Test
+    void failsWhenEnrollmentServiceIsUnavailableOrReturnsNoData() {
+        server.expect(requestTo(URL)).andRespond(withServerError());
+        assertThatThrownBy(() -> enrollmentClient.expectedEnrolledCounts(List.of("a")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("选课服务暂时不可用");
+
+        server.reset();
+        server.expect(requestTo(URL))
+                .andRespond(withSuccess("{\"code\":200,\"message\":\"Success\"}", MediaType.APPLICATION_JSON));
+        assertThatThrownBy(() -> enrollmentClient.expectedEnrolledCounts(List.of("a")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("选课服务返回的选课数无效");
+    }
+}
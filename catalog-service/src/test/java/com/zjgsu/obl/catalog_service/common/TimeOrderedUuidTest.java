@@ -0,0 +1,54 @@
+package com.zjgsu.obl.catalog_service.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TimeOrderedUuidTest {
+
+    @Test
+    void generatesStrictlyIncreasingVersion7Ids() {
+        String previous = TimeOrderedUuid.generate();
+        for (int i = 0; i < 100_000; i++) {
+            String next = TimeOrderedUuid.generate();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+
+        UUID uuid = UUID.fromString(previous);
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+        assertThat(uuid.getMostSignificantBits() >>> 16).isCloseTo(System.currentTimeMillis(), within(5_000L));
+    }
+
+    @Test
+    void byteOrderMatchesGenerationOrder() {
+        byte[] first = TimeOrderedUuid.toBytes(TimeOrderedUuid.generate());
+        byte[] second = TimeOrderedUuid.toBytes(TimeOrderedUuid.generate());
+
+        assertThat(first).hasSize(16);
+        assertThat(Arrays.compareUnsigned(first, second)).isNegative();
+    }
+
+    @Test
+    void roundTripsExistingRandomIds() {
+        String legacy = UUID.randomUUID().toString();
+
+        assertThat(TimeOrderedUuid.fromBytes(TimeOrderedUuid.toBytes(legacy))).isEqualTo(legacy);
+        assertThat(TimeOrderedUuid.fromBytes(TimeOrderedUuid.toBytes(legacy.toUpperCase()))).isEqualTo(legacy);
+    }
+
+    @Test
+    void nonUuidStringsMapToEmptyKey() {
+        assertThat(TimeOrderedUuid.toBytes("")).isEmpty();
+        assertThat(TimeOrderedUuid.toBytes("not-a-course-id")).isEmpty();
+        assertThat(TimeOrderedUuid.toBytes("zzzzzzzz-zzzz-zzzz-zzzz-zzzzzzzzzzzz")).isEmpty();
+        assertThat(TimeOrderedUuid.toBytes(null)).isNull();
+        assertThatThrownBy(() -> TimeOrderedUuid.fromBytes(new byte[3])).isInstanceOf(IllegalArgumentException.class);
+    }
+}
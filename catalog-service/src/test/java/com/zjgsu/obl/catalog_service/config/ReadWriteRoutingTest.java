@@ -0,0 +1,159 @@
+package com.zjgsu.obl.catalog_service.config;
+
+import com.jayway.jsonpath.JsonPath;
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 读写分离：两个内存 H2 库分别作为主库和从库，从库的数据由测试手动“复制”，以此模拟复制延迟
+ */
+@SpringBootTest(properties = {
+        "catalog.search.index-enabled=false",
+        "datasource.routing.enabled=true",
+        "datasource.routing.read-your-writes-window=1m",
+        "datasource.replica.url=jdbc:h2:mem:catalog_rw_replica;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class ReadWriteRoutingTest {
+    private static final String COURSE_JSON = """
+            {"code": "RW101", "title": "读写分离", "capacity": 30,
+             "instructor": {"id": "T1", "name": "教师", "email": "t1@example.edu.cn"},
+             "schedule": {"dayOfWeek": "MONDAY", "startTime": "08:00", "endTime": "10:00", "expectedAttendance": 30}}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        // 从库的表结构由主库导出，Hibernate 只在主库上建表
+        if (replica.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'COURSES'",
+                Integer.class) == 0) {
+            primary.queryForList("SCRIPT NODATA TABLE COURSES", String.class).forEach(replica::execute);
+        }
+        primary.update("DELETE FROM courses");
+        replica.update("DELETE FROM courses");
+    }
+
+    @Test
+    void readsUseReplicaExceptWithinReadYourWritesWindow() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/courses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(COURSE_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWrites.COOKIE_NAME))
+                .andReturn();
+        String id = JsonPath.read(created.getResponse().getContentAsString(), "$.data.id");
+        Cookie window = created.getResponse().getCookie(ReadYourWrites.COOKIE_NAME);
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM courses", Integer.class)).isEqualTo(1);
+        long pinnedReads = (long) routingDataSource.stats().get("pinnedReads");
+
+        // 写入方带着 Cookie 读主库，能读到刚创建的课程
+        mockMvc.perform(get("/api/courses/{id}", id).cookie(window))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.title").value("读写分离"));
+        assertThat((long) routingDataSource.stats().get("pinnedReads")).isEqualTo(pinnedReads + 1);
+
+        // 其他客户端读从库，复制完成前读不到
+        mockMvc.perform(get("/api/courses/{id}", id)).andExpect(status().isNotFound());
+        replicate();
+        mockMvc.perform(get("/api/courses/{id}", id)).andExpect(status().isOk());
+
+        // 伪造的远期截止时间不生效
+        mockMvc.perform(get("/api/courses/{id}", id)
+                        .cookie(new Cookie(ReadYourWrites.COOKIE_NAME, Long.toString(Long.MAX_VALUE))))
+                .andExpect(status().isOk());
+        assertThat((long) routingDataSource.stats().get("pinnedReads")).isEqualTo(pinnedReads + 1);
+    }
+
+    @Test
+    void readOnlyTransactionSkipsFlushAndDirtyChecking() throws Exception {
+        mockMvc.perform(post("/api/courses").contentType(MediaType.APPLICATION_JSON).content(COURSE_JSON))
+                .andExpect(status().isCreated());
+        replicate();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+
+            Course course = courseRepository.findAll().get(0);
+            assertThat(session.isReadOnly(course)).isTrue();
+            course.setTitle("不会写回");
+        });
+
+        assertThat(primary.queryForObject("SELECT title FROM courses", String.class)).isEqualTo("读写分离");
+        assertThat(replica.queryForObject("SELECT title FROM courses", String.class)).isEqualTo("读写分离");
+    }
+
+    /**
+     * 把主库的课程表整表复制到从库
+     */
+    private void replicate() {
+        replica.update("DELETE FROM courses");
+        for (Map<String, Object> row : primary.queryForList("SELECT * FROM courses")) {
+            List<String> columns = List.copyOf(row.keySet());
+            replica.update("INSERT INTO courses (" + String.join(", ", columns) + ") VALUES ("
+                            + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")",
+                    columns.stream().map(row::get).toArray());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.zjgsu.obl.catalog_service.controller;
+
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 按ID批量查询课程：只返回存在的课程，重复的ID只返回一次，超过单次上限返回 400
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class CourseBatchLookupTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private String math;
+    private String physics;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        math = save("MATH1");
+        physics = save("PHYS1");
+        save("CHEM1");
+    }
+
+    @Test
+    void returnsOnlyExistingCourses() throws Exception {
+        String missing = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/courses/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"" + math + "\", \"" + missing + "\", \"" + physics + "\", \"" + math + "\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[*].id").value(containsInAnyOrder(math, physics)))
+                .andExpect(jsonPath("$.data[*].courseCode").value(containsInAnyOrder("MATH1", "PHYS1")));
+    }
+
+    @Test
+    void emptyRequestReturnsEmptyList() throws Exception {
+        mockMvc.perform(post("/api/courses/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(0));
+    }
+
+    @Test
+    void rejectsMoreThanBatchLimit() throws Exception {
+        String ids = IntStream.range(0, 501)
+                .mapToObj(i -> "\"" + UUID.randomUUID() + "\"")
+                .collect(Collectors.joining(",", "[", "]"));
+        mockMvc.perform(post("/api/courses/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ids))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400));
+    }
+
+    private String save(String code) {
+        Course course = new Course();
+        course.setCourseCode(code);
+        course.setTitle("课程" + code);
+        course.setInstructor(new Instructor("T1", "教师", "t1@example.edu.cn"));
+        course.setCapacity(30);
+        course.setEnrolledCount(0);
+        return courseRepository.save(course).getId();
+    }
+}
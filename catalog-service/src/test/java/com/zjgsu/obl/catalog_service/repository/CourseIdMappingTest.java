@@ -0,0 +1,104 @@
+package com.zjgsu.obl.catalog_service.repository;
+
+import com.zjgsu.obl.catalog_service.common.CursorPage;
+import com.zjgsu.obl.catalog_service.dto.CourseSummary;
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.service.CourseService;
+import com.zjgsu.obl.catalog_service.service.SeatLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 课程主键：按时间排序的 UUIDv7，数据库中存为 BINARY(16)，对外仍是 36 位字符串
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CourseIdMappingTest {
+    private static final String UUID_V7 = "[0-9a-f]{8}-[0-9a-f]{4}-7[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<String> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        ids.clear();
+        for (int i = 0; i < 25; i++) {
+            Course course = new Course();
+            course.setCourseCode("ID" + i);
+            course.setTitle("课程" + i);
+            course.setInstructor(new Instructor("T1", "教师", "t1@example.edu.cn"));
+            course.setCapacity(30);
+            ids.add(courseRepository.save(course).getId());
+        }
+    }
+
+    @Test
+    void storesTimeOrderedIdsAsBinary() {
+        assertThat(ids).allMatch(id -> id.matches(UUID_V7));
+        assertThat(ids).isSorted();
+
+        Map<String, Object> column = jdbcTemplate.queryForMap("SELECT DATA_TYPE, CHARACTER_OCTET_LENGTH "
+                + "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_NAME = 'COURSES' AND COLUMN_NAME = 'ID'");
+        assertThat(column.get("DATA_TYPE")).isEqualTo("BINARY");
+        assertThat(((Number) column.get("CHARACTER_OCTET_LENGTH")).intValue()).isEqualTo(16);
+
+        assertThat(courseRepository.findById(ids.get(3))).get()
+                .satisfies(course -> assertThat(course.getCode()).isEqualTo("ID3"));
+        assertThat(courseRepository.findById(UUID.randomUUID().toString())).isEmpty();
+        assertThat(courseRepository.findById("not-a-course-id")).isEmpty();
+    }
+
+    @Test
+    void cursorPagesFollowCreationOrder() {
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<CourseSummary> page = courseService.findSummaryPage(cursor, 10);
+            page.getItems().forEach(summary -> paged.add(summary.id()));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        assertThat(paged).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void seatLedgerReadsAndWritesBinaryIds() {
+        ReflectionTestUtils.setField(seatLedger, "enabled", true);
+        ReflectionTestUtils.setField(seatLedger, "recoveryEnabled", false);
+        try {
+            seatLedger.load();
+            assertThat(seatLedger.reserve(ids.get(0), 3)).isEqualTo(3);
+            seatLedger.flush();
+
+            assertThat(courseRepository.findById(ids.get(0))).get()
+                    .satisfies(course -> assertThat(course.getEnrolled()).isEqualTo(3));
+        } finally {
+            ReflectionTestUtils.setField(seatLedger, "enabled", false);
+        }
+    }
+}
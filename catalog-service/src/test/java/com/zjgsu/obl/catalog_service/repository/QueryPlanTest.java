@@ -0,0 +1,93 @@
+package com.zjgsu.obl.catalog_service.repository;
+
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对课程动态条件查询实际生成的 SQL 执行 EXPLAIN，确认只包含传入的条件并命中对应的索引
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.zjgsu.obl.catalog_service.repository.QueryPlanTest$CapturingInspector"
+})
+@ActiveProfiles("test")
+class QueryPlanTest {
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        for (int i = 0; i < 200; i++) {
+            Course course = new Course();
+            course.setCourseCode("CS" + i);
+            course.setTitle("课程" + i);
+            course.setInstructor(new Instructor("T" + (i % 25), "教师" + (i % 25), "t" + (i % 25) + "@example.edu.cn"));
+            course.setCapacity(60);
+            courseRepository.save(course);
+        }
+        jdbcTemplate.execute("ANALYZE");
+        statements.clear();
+    }
+
+    @Test
+    void coursesByInstructorUseInstructorIndex() {
+        courseRepository.findAll(CourseSpecifications.matching(null, "T3", null));
+
+        String sql = lastSelect();
+        assertThat(sql).doesNotContainIgnoringCase("is null");
+        assertThat(whereClause(sql)).doesNotContainIgnoringCase("like");
+        assertThat(explain(sql, "T3")).contains("IDX_COURSES_INSTRUCTOR_ID");
+    }
+
+    @Test
+    void coursesByCodeUseUniqueIndex() {
+        courseRepository.findAll(CourseSpecifications.matching("CS42", null, null));
+
+        String sql = lastSelect();
+        assertThat(whereClause(sql)).doesNotContainIgnoringCase("instructor_id").doesNotContainIgnoringCase("like");
+        assertThat(explain(sql, "CS42")).contains("COURSE_CODE = ?1").doesNotContain("tableScan");
+    }
+
+    private String lastSelect() {
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).trim().toLowerCase().startsWith("select")) {
+                return statements.get(i);
+            }
+        }
+        throw new AssertionError("no SELECT captured: " + statements);
+    }
+
+    private String whereClause(String sql) {
+        return sql.substring(sql.toLowerCase().lastIndexOf(" where "));
+    }
+
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
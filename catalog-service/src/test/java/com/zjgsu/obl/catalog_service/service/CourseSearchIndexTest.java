@@ -0,0 +1,150 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.dto.CourseSummary;
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.model.ScheduleSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 内存 n-gram 索引的匹配、排序、条数限制和增量更新
+ */
+class CourseSearchIndexTest {
+    private CourseSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourseSearchIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "defaultLimit", 20);
+        ReflectionTestUtils.setField(index, "maxLimit", 100);
+        ReflectionTestUtils.setField(index, "suggestLimit", 10);
+
+        index.index(course("c1", "CS201", "数据结构"));
+        index.index(course("c2", "CS301", "高级数据结构与算法"));
+        index.index(course("c3", "DB101", "数据库系统原理"));
+        Course se = course("c4", "SE101", "软件工程");
+        se.setInstructor(new Instructor("T002", "李老师", "li@example.edu.cn"));
+        index.index(se);
+        index.index(course("c5", "DS", "Data Science 导论"));
+    }
+
+    @Test
+    void matchesChineseSubstrings() {
+        assertThat(ids(index.search("数据结构", null))).containsExactly("c1", "c2");
+        assertThat(ids(index.search("据库", null))).containsExactly("c3");
+        assertThat(ids(index.search("结构与算", null))).containsExactly("c2");
+        assertThat(index.search("结构数据", null)).isEmpty();
+    }
+
+    @Test
+    void singleCharacterQueryUsesUnigrams() {
+        assertThat(ids(index.search("工", null))).containsExactly("c4");
+        assertThat(ids(index.search("数", null))).containsExactly("c1", "c3", "c2");
+    }
+
+    @Test
+    void ignoresCaseWidthAndWhitespace() {
+        assertThat(ids(index.search("cs 201", null))).containsExactly("c1");
+        assertThat(ids(index.search("ＣＳ２０１", null))).containsExactly("c1");
+        assertThat(ids(index.search("datascience", null))).containsExactly("c5");
+        assertThat(index.search("   ", null)).isEmpty();
+    }
+
+    @Test
+    void ranksCodeMatchesBeforeTitleMatches() {
+        index.index(course("c6", "DATA1", "大数据导论"));
+
+        // 代码完全匹配 > 代码前缀 > 名称前缀
+        assertThat(ids(index.search("ds", null))).containsExactly("c5");
+        assertThat(ids(index.search("data", null))).containsExactly("c6", "c5");
+        assertThat(ids(index.search("cs", null))).containsExactly("c1", "c2");
+    }
+
+    @Test
+    void appliesLimit() {
+        assertThat(ids(index.search("数", 2))).containsExactly("c1", "c3");
+        assertThatThrownBy(() -> index.search("数", 0)).isInstanceOf(IllegalArgumentException.class);
+
+        ReflectionTestUtils.setField(index, "maxLimit", 1);
+        assertThat(index.search("数", 50)).hasSize(1);
+    }
+
+    @Test
+    void appliesUpdatesAndDeletes() {
+        index.index(course("c1", "CS201", "操作系统"));
+        assertThat(ids(index.search("数据结构", null))).containsExactly("c2");
+        assertThat(ids(index.search("操作", null))).containsExactly("c1");
+
+        index.remove("c2");
+        assertThat(index.search("数据结构", null)).isEmpty();
+        assertThat(index.stats()).containsEntry("courses", 4);
+    }
+
+    @Test
+    void keepsIndependentCopies() {
+        Course course = course("c7", "PY101", "Python 程序设计");
+        index.index(course);
+        course.setTitle("已修改");
+
+        assertThat(index.search("python", null)).singleElement()
+                .satisfies(found -> assertThat(found.getTitle()).isEqualTo("Python 程序设计"));
+    }
+
+    @Test
+    void suggestsByCodeTitleTokenAndInstructorPrefix() {
+        assertThat(summaryIds(index.suggest("cs", null))).containsExactlyInAnyOrder("c1", "c2");
+        assertThat(summaryIds(index.suggest("science", null))).containsExactly("c5");
+        assertThat(summaryIds(index.suggest("数据库", null))).containsExactly("c3");
+        // 中文片段从每个字开始建键，名称中间的词也能联想到
+        assertThat(summaryIds(index.suggest("结构", null))).containsExactlyInAnyOrder("c1", "c2");
+        assertThat(summaryIds(index.suggest("李", null))).containsExactly("c4");
+        assertThat(index.suggest("xyz", null)).isEmpty();
+    }
+
+    @Test
+    void suggestRanksByRemainingSeats() {
+        Course nearlyFull = course("c8", "CS401", "数据挖掘");
+        nearlyFull.setEnrolledCount(58);
+        index.index(nearlyFull);
+        Course roomy = course("c9", "CS402", "数据可视化");
+        roomy.setCapacity(200);
+        index.index(roomy);
+
+        assertThat(summaryIds(index.suggest("数据", null))).containsExactly("c9", "c1", "c2", "c3", "c8");
+        assertThat(summaryIds(index.suggest("数据", 2))).containsExactly("c9", "c1");
+        assertThat(index.suggest("数据", 1).get(0).enrolledCount()).isZero();
+    }
+
+    @Test
+    void suggestFollowsUpdatesAndDeletes() {
+        index.index(course("c4", "SE101", "软件测试"));
+        assertThat(index.suggest("软件工程", null)).isEmpty();
+        assertThat(summaryIds(index.suggest("软件测", null))).containsExactly("c4");
+
+        index.remove("c4");
+        assertThat(index.suggest("软件", null)).isEmpty();
+        assertThat(index.suggest("李", null)).isEmpty();
+    }
+
+    private static List<String> summaryIds(List<CourseSummary> summaries) {
+        return summaries.stream().map(CourseSummary::id).toList();
+    }
+
+    private static List<String> ids(List<Course> courses) {
+        return courses.stream().map(Course::getId).toList();
+    }
+
+    private static Course course(String id, String code, String title) {
+        return new Course(id, code, title,
+                new Instructor("T001", "张老师", "zhang@example.edu.cn"),
+                new ScheduleSlot("MONDAY", "08:00", "10:00", 50), 60);
+    }
+}
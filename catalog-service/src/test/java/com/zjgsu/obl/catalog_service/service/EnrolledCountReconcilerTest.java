@@ -0,0 +1,116 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.client.EnrollmentClient;
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 已选人数校准：按页批量查询应有人数，连续两次扫描到相同偏差的课程才修正
+ */
+@SpringBootTest(properties = {
+        // 校准由测试手动触发
+        "catalog.reconciliation.interval-ms=3600000",
+        "catalog.reconciliation.page-size=2"
+})
+@ActiveProfiles("test")
+class EnrolledCountReconcilerTest {
+    @Autowired
+    private EnrolledCountReconciler reconciler;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @MockitoBean
+    private EnrollmentClient enrollmentClient;
+
+    // 选课服务中每门课程应有的人数
+    private final Map<String, Integer> expected = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        expected.clear();
+        when(enrollmentClient.expectedEnrolledCounts(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String courseId : invocation.<Collection<String>>getArgument(0)) {
+                counts.put(courseId, expected.getOrDefault(courseId, 0));
+            }
+            return counts;
+        });
+    }
+
+    @Test
+    void correctsOnlyDriftSeenTwice() {
+        String over = save("OVER", 5);
+        String exact = save("EXACT", 2);
+        String under = save("UNDER", 0);
+        String settling = save("TRANSIENT", 3);
+        expected.putAll(Map.of(over, 3, exact, 2, under, 1, settling, 2));
+
+        // 第一次只记下偏差，4 门课程分 2 页，每页一次批量查询
+        reconciler.reconcile();
+        verify(enrollmentClient, times(2)).expectedEnrolledCounts(anyCollection());
+        assertThat(enrolled(over)).isEqualTo(5);
+        assertThat(enrolled(under)).isZero();
+
+        // 第二次扫描前，进行中的选课已完成，偏差消失
+        expected.put(settling, 3);
+        clearInvocations(enrollmentClient);
+        reconciler.reconcile();
+
+        assertThat(enrolled(over)).isEqualTo(3);
+        assertThat(enrolled(exact)).isEqualTo(2);
+        assertThat(enrolled(under)).isEqualTo(1);
+        assertThat(enrolled(settling)).isEqualTo(3);
+        assertThat(reconciler.stats()).containsEntry("suspects", 0);
+    }
+
+    @Test
+    void skipsCourseChangedSinceLastScan() {
+        String course = save("BUSY", 4);
+        expected.put(course, 2);
+        reconciler.reconcile();
+
+        // 两次扫描之间有新的占座，读到的人数变了，这次不修正
+        Course busy = courseRepository.findById(course).orElseThrow();
+        busy.setEnrolledCount(5);
+        courseRepository.save(busy);
+        reconciler.reconcile();
+        assertThat(enrolled(course)).isEqualTo(5);
+
+        reconciler.reconcile();
+        assertThat(enrolled(course)).isEqualTo(2);
+    }
+
+    private String save(String code, int enrolled) {
+        Course course = new Course();
+        course.setCourseCode(code);
+        course.setTitle("课程" + code);
+        course.setInstructor(new Instructor("T1", "教师", "t1@example.edu.cn"));
+        course.setCapacity(30);
+        course.setEnrolledCount(enrolled);
+        return courseRepository.save(course).getId();
+    }
+
+    private int enrolled(String courseId) {
+        return courseRepository.findById(courseId).orElseThrow().getEnrolledCount();
+    }
+}
@@ -0,0 +1,65 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RadixTrieTest {
+
+    @Test
+    void findsValuesByPrefixAcrossSplitEdges() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("cs101", "a");
+        trie.add("cs102", "b");
+        trie.add("cs2", "c");
+        trie.add("数据结构", "d");
+        trie.add("数据库", "e");
+
+        assertThat(withPrefix(trie, "cs")).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(withPrefix(trie, "cs10")).containsExactlyInAnyOrder("a", "b");
+        assertThat(withPrefix(trie, "cs1015")).isEmpty();
+        assertThat(withPrefix(trie, "数据")).containsExactlyInAnyOrder("d", "e");
+        assertThat(withPrefix(trie, "数据库")).containsExactly("e");
+        assertThat(withPrefix(trie, "")).hasSize(5);
+        assertThat(trie.size()).isEqualTo(5);
+    }
+
+    @Test
+    void removeMergesEdgesBack() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("cs101", "a");
+        int nodesBefore = trie.nodeCount();
+        trie.add("cs102", "b");
+        trie.add("cs", "c");
+
+        trie.remove("cs102", "b");
+        trie.remove("cs", "c");
+        trie.remove("cs", "missing");
+
+        assertThat(trie.nodeCount()).isEqualTo(nodesBefore);
+        assertThat(withPrefix(trie, "cs1")).containsExactly("a");
+
+        trie.remove("cs101", "a");
+        assertThat(trie.size()).isZero();
+        assertThat(trie.nodeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsSeveralValuesPerKey() {
+        RadixTrie trie = new RadixTrie();
+        trie.add("张老师", "a");
+        trie.add("张老师", "b");
+        trie.remove("张老师", "a");
+
+        assertThat(withPrefix(trie, "张")).containsExactly("b");
+    }
+
+    private static Set<String> withPrefix(RadixTrie trie, String prefix) {
+        Set<String> values = new HashSet<>();
+        trie.forEachWithPrefix(prefix, values::add);
+        return values;
+    }
+}
@@ -0,0 +1,133 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.repository.AppliedSeatEventRepository;
+import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 批量人数变化：一次请求在一个事务中调整多门课程的已选人数，占座不超过容量、释放不低于 0；
+ * 按事件投递时同一事件ID只应用一次
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class SeatDeltasTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private AppliedSeatEventRepository appliedSeatEventRepository;
+
+    private String hot;
+    private String quiet;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        appliedSeatEventRepository.deleteAll();
+        hot = save("HOT1", 30, 26);
+        quiet = save("QUIET1", 30, 2);
+    }
+
+    @Test
+    void appliesAllDeltasInOneRequest() throws Exception {
+        String missing = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/courses/seats/deltas")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"" + hot + "\": 10, \"" + quiet + "\": -5, \"" + missing + "\": 1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['" + hot + "']").value(4))
+                .andExpect(jsonPath("$.data['" + quiet + "']").value(-2))
+                .andExpect(jsonPath("$.data['" + missing + "']").doesNotExist());
+
+        assertThat(courseRepository.findById(hot)).get()
+                .satisfies(course -> assertThat(course.getEnrolledCount()).isEqualTo(30));
+        assertThat(courseRepository.findById(quiet)).get()
+                .satisfies(course -> assertThat(course.getEnrolledCount()).isZero());
+    }
+
+    @Test
+    void rejectsNullDelta() throws Exception {
+        mockMvc.perform(post("/api/courses/seats/deltas")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"" + hot + "\": null}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(courseRepository.findById(hot)).get()
+                .satisfies(course -> assertThat(course.getEnrolledCount()).isEqualTo(26));
+    }
+
+    @Test
+    void redeliveredEventsAreAppliedOnce() throws Exception {
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        String third = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/courses/seats/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + event(first, hot, -1) + "," + event(second, hot, -1) + ","
+                                + event(third, quiet, -1) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['" + hot + "']").value(-2))
+                .andExpect(jsonPath("$.data['" + quiet + "']").value(-1));
+
+        // 选课服务没收到响应，连同新事件一起重新投递：只有新事件生效
+        String fourth = UUID.randomUUID().toString();
+        mockMvc.perform(post("/api/courses/seats/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + event(first, hot, -1) + "," + event(second, hot, -1) + ","
+                                + event(third, quiet, -1) + "," + event(fourth, hot, -1) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data['" + hot + "']").value(-1))
+                .andExpect(jsonPath("$.data['" + quiet + "']").value(0));
+
+        assertThat(courseRepository.findById(hot)).get()
+                .satisfies(course -> assertThat(course.getEnrolledCount()).isEqualTo(23));
+        assertThat(courseRepository.findById(quiet)).get()
+                .satisfies(course -> assertThat(course.getEnrolledCount()).isEqualTo(1));
+        assertThat(appliedSeatEventRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsEventWithoutId() throws Exception {
+        mockMvc.perform(post("/api/courses/seats/events")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"courseId\": \"" + hot + "\", \"delta\": -1}]"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(courseRepository.findById(hot)).get()
+                .satisfies(course -> assertThat(course.getEnrolledCount()).isEqualTo(26));
+    }
+
+    private String event(String id, String courseId, int delta) {
+        return "{\"id\": \"" + id + "\", \"courseId\": \"" + courseId + "\", \"delta\": " + delta + "}";
+    }
+
+    private String save(String code, int capacity, int enrolled) {
+        Course course = new Course();
+        course.setCourseCode(code);
+        course.setTitle("课程" + code);
+        course.setInstructor(new Instructor("T1", "教师", "t1@example.edu.cn"));
+        course.setCapacity(capacity);
+        course.setEnrolledCount(enrolled);
+        return courseRepository.save(course).getId();
+    }
+}
@@ -0,0 +1,112 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.client.EnrollmentClient;
+import com.zjgsu.obl.catalog_service.exception.BusinessException;
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * 选课窗口模式的座位账本：课程修改在事务提交后才同步；启动恢复完成前的占座等待恢复结果
+ */
+@SpringBootTest(properties = "catalog.reconciliation.enabled=false")
+@ActiveProfiles("test")
+class SeatLedgerTest {
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private EnrollmentClient enrollmentClient;
+
+    private String courseId;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        Course course = new Course();
+        course.setCourseCode("LEDGER1");
+        course.setTitle("课程LEDGER1");
+        course.setInstructor(new Instructor("T1", "教师", "t1@example.edu.cn"));
+        course.setCapacity(30);
+        course.setEnrolledCount(2);
+        courseId = courseRepository.save(course).getId();
+        ReflectionTestUtils.setField(seatLedger, "enabled", true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(seatLedger, "enabled", false);
+        ReflectionTestUtils.setField(seatLedger, "recoveryWait", Duration.ofSeconds(10));
+    }
+
+    @Test
+    void rolledBackCapacityChangeIsNotApplied() {
+        ReflectionTestUtils.setField(seatLedger, "recoveryEnabled", false);
+        seatLedger.load();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Course update = new Course();
+            update.setCapacity(3);
+            courseService.updateCourse(courseId, update);
+            status.setRollbackOnly();
+        });
+
+        assertThat(seatLedger.reserve(courseId, 10)).isEqualTo(10);
+    }
+
+    @Test
+    void reservationsWaitForRecovery() throws Exception {
+        ReflectionTestUtils.setField(seatLedger, "recoveryEnabled", true);
+        when(enrollmentClient.expectedEnrolledCounts(anyCollection())).thenReturn(Map.of(courseId, 7));
+        seatLedger.load();
+
+        CompletableFuture<Boolean> reservation = CompletableFuture.supplyAsync(() -> seatLedger.reserve(courseId));
+        Thread.sleep(200);
+        assertThat(reservation).isNotDone();
+
+        // 恢复后的人数不会覆盖恢复期间的占座
+        seatLedger.recoverAfterStartup();
+        assertThat(reservation.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(seatLedger.enrolledCount(courseId)).isEqualTo(8);
+    }
+
+    @Test
+    void reservationFailsWhenRecoveryDoesNotFinishInTime() {
+        ReflectionTestUtils.setField(seatLedger, "recoveryEnabled", true);
+        ReflectionTestUtils.setField(seatLedger, "recoveryWait", Duration.ofMillis(100));
+        seatLedger.load();
+        try {
+            assertThatThrownBy(() -> seatLedger.reserve(courseId)).isInstanceOf(BusinessException.class);
+        } finally {
+            seatLedger.recoverAfterStartup();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.zjgsu.obl.catalog_service.service;
+
+import com.zjgsu.obl.catalog_service.model.Course;
+import com.zjgsu.obl.catalog_service.model.Instructor;
+import com.zjgsu.obl.catalog_service.repository.CourseRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 并发占座：条件更新只在未满时 +1，任意多个请求同时抢占时成功数恰好等于容量
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatReservationConcurrencyTest {
+    private static final int CAPACITY = 5;
+    private static final int THREADS = 20;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    private String courseId;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        Course course = new Course();
+        course.setCourseCode("RACE1");
+        course.setTitle("并发占座");
+        course.setInstructor(new Instructor("T1", "教师", "t1@example.edu.cn"));
+        course.setCapacity(CAPACITY);
+        course.setEnrolledCount(0);
+        courseId = courseRepository.save(course).getId();
+    }
+
+    @Test
+    void concurrentReservationsNeverExceedCapacity() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return courseService.reserveSeat(courseId);
+                }));
+            }
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    reserved++;
+                }
+            }
+            assertThat(reserved).isEqualTo(CAPACITY);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(courseRepository.findById(courseId)).get()
+                .satisfies(course -> assertThat(course.getEnrolledCount()).isEqualTo(CAPACITY));
+    }
+}
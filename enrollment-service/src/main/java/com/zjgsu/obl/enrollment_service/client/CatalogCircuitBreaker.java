@@ -0,0 +1,229 @@
+package com.zjgsu.obl.enrollment_service.client;
+
+import com.zjgsu.obl.enrollment_service.exception.CircuitOpenException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 调用 catalog-service 的熔断器
+ *
+ * 关闭状态下按最近 window-size 次调用统计失败率和慢调用率，调用数达到 minimum-calls 后任一比例超过阈值即打开；
+ * 打开期间调用不发出，直接抛出 CircuitOpenException；open-duration 后进入半开状态，只放行 half-open-probes 次试探调用，
+ * 全部成功且不慢则关闭，任一失败或过慢则重新打开。
+ * 课程服务返回的 4xx（课程不存在、已满等）说明服务正常，不计为失败
+ */
+@Component
+public class CatalogCircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    @Value("${catalog-service.circuit-breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${catalog-service.circuit-breaker.window-size:50}")
+    private int windowSize;
+
+    @Value("${catalog-service.circuit-breaker.minimum-calls:20}")
+    private int minimumCalls;
+
+    @Value("${catalog-service.circuit-breaker.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    @Value("${catalog-service.circuit-breaker.slow-call-duration:1s}")
+    private Duration slowCallDuration;
+
+    @Value("${catalog-service.circuit-breaker.slow-call-rate-threshold:80}")
+    private int slowCallRateThreshold;
+
+    @Value("${catalog-service.circuit-breaker.open-duration:10s}")
+    private Duration openDuration;
+
+    @Value("${catalog-service.circuit-breaker.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    // 每次状态切换加一，切换前发出的调用结果不再计入
+    private long generation;
+    private long openedAt;
+
+    // 关闭状态下的滑动窗口：环形数组保存每次调用的结果标记
+    private byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failedCalls;
+    private int slowCalls;
+
+    // 半开状态下已放行和已成功的试探调用数
+    private int probesPermitted;
+    private int probesSucceeded;
+
+    private final Map<String, AtomicLong> transitions = new ConcurrentHashMap<>();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        outcomes = new byte[windowSize];
+    }
+
+    /**
+     * 经熔断器调用课程服务
+     * @throws CircuitOpenException 熔断打开或半开试探名额已满时，调用不会发出
+     */
+    public <T> T call(Supplier<T> supplier) {
+        if (!enabled) {
+            return supplier.get();
+        }
+        long permit = acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = supplier.get();
+            record(permit, System.nanoTime() - start, false);
+            return result;
+        } catch (HttpClientErrorException e) {
+            record(permit, System.nanoTime() - start, false);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            record(permit, System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long acquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                long waited = System.nanoTime() - openedAt;
+                if (waited < openDuration.toNanos()) {
+                    throw reject(openDuration.toNanos() - waited);
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesPermitted >= halfOpenProbes) {
+                    throw reject(0);
+                }
+                probesPermitted++;
+            }
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CircuitOpenException reject(long remainingNanos) {
+        rejected.incrementAndGet();
+        // 向上取整，避免客户端在熔断结束前重试
+        long retryAfterSeconds = Math.max(1, (remainingNanos + 999_999_999L) / 1_000_000_000L);
+        return new CircuitOpenException("课程服务暂时不可用，请稍后重试", retryAfterSeconds);
+    }
+
+    private void record(long permit, long elapsedNanos, boolean failed) {
+        boolean slow = elapsedNanos >= slowCallDuration.toNanos();
+        lock.lock();
+        try {
+            if (permit != generation) {
+                return;
+            }
+            if (state == State.HALF_OPEN) {
+                if (failed || slow) {
+                    transitionTo(State.OPEN);
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transitionTo(State.CLOSED);
+                }
+                return;
+            }
+
+            if (recorded == windowSize) {
+                byte evicted = outcomes[next];
+                failedCalls -= evicted & FAILED;
+                slowCalls -= (evicted & SLOW) >> 1;
+            } else {
+                recorded++;
+            }
+            byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+            outcomes[next] = outcome;
+            next = (next + 1) % windowSize;
+            failedCalls += outcome & FAILED;
+            slowCalls += (outcome & SLOW) >> 1;
+
+            if (recorded >= minimumCalls
+                    && (failedCalls * 100 >= failureRateThreshold * recorded
+                    || slowCalls * 100 >= slowCallRateThreshold * recorded)) {
+                logger.warn("课程服务调用失败率或慢调用率过高，熔断打开: calls={}, failed={}, slow={}",
+                        recorded, failedCalls, slowCalls);
+                transitionTo(State.OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 持有锁时调用
+     */
+    private void transitionTo(State target) {
+        transitions.computeIfAbsent(state + "->" + target, k -> new AtomicLong()).incrementAndGet();
+        logger.info("课程服务熔断器状态切换: {} -> {}", state, target);
+        state = target;
+        generation++;
+        switch (target) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                probesPermitted = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                next = 0;
+                recorded = 0;
+                failedCalls = 0;
+                slowCalls = 0;
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        lock.lock();
+        try {
+            stats.put("state", state);
+            stats.put("windowCalls", recorded);
+            stats.put("failureRate", recorded == 0 ? 0.0 : failedCalls * 100.0 / recorded);
+            stats.put("slowCallRate", recorded == 0 ? 0.0 : slowCalls * 100.0 / recorded);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("rejected", rejected.get());
+        Map<String, Long> transitionCounts = new LinkedHashMap<>();
+        transitions.forEach((transition, count) -> transitionCounts.put(transition, count.get()));
+        stats.put("transitions", transitionCounts);
+        return stats;
+    }
+}
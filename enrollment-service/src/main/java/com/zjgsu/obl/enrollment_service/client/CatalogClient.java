@@ -0,0 +1,479 @@
+package com.zjgsu.obl.enrollment_service.client;
+
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.exception.CircuitOpenException;
+import com.zjgsu.obl.enrollment_service.exception.ResourceNotFoundException;
+import com.zjgsu.obl.enrollment_service.model.SeatOutboxEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * catalog-service 调用客户端，课程信息查询先走本地缓存，同一课程的并发查询合并为一次调用；
+ * 所有调用经过熔断器，课程服务不可用时只读查询退回过期的缓存信息
+ */
+@Component
+public class CatalogClient {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogClient.class);
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private CourseInfoCache courseInfoCache;
+
+    @Autowired
+    private CatalogCircuitBreaker circuitBreaker;
+
+    @Value("${catalog-service.url:http://localhost:8081}")
+    private String catalogServiceUrl;
+
+    @Value("${catalog-service.batch-size:100}")
+    private int catalogBatchSize;
+
+    @Value("${catalog-service.fan-out.parallelism:4}")
+    private int fanOutParallelism;
+
+    @Value("${catalog-service.fan-out.max-concurrency:64}")
+    private int fanOutMaxConcurrency;
+
+    @Value("${catalog-service.fan-out.deadline:800ms}")
+    private Duration fanOutDeadline;
+
+    @Autowired
+    private SimpleAsyncTaskExecutorBuilder taskExecutorBuilder;
+
+    private SimpleAsyncTaskExecutor fanOutExecutor;
+
+    // 所有请求合计正在进行的批量调用路数
+    private Semaphore fanOutPermits;
+
+    @Value("${catalog-service.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    // 课程服务不可用时改用缓存中过期课程信息的次数
+    private final AtomicLong staleFallbacks = new AtomicLong();
+
+    // 正在进行的单门课程查询，同一课程的并发查询共用一次调用
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Object>>> inFlightLookups =
+            new ConcurrentHashMap<>();
+    private final AtomicLong singleFlightLookups = new AtomicLong();
+    private final AtomicLong singleFlightCalls = new AtomicLong();
+    private final AtomicLong singleFlightCoalesced = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // 并发上限由 fanOutPermits 控制：执行器自带的并发限制会在提交时阻塞请求线程，不受 deadline 约束
+        fanOutExecutor = taskExecutorBuilder
+                .threadNamePrefix("catalog-fanout-")
+                .build();
+        fanOutPermits = new Semaphore(fanOutMaxConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutExecutor.close();
+    }
+
+    /**
+     * 获取课程信息，缓存未命中时调用 GET /api/courses/{id}
+     */
+    public Map<String, Object> getCourseInfo(String courseId) {
+        Map<String, Object> cached = courseInfoCache.get(courseId);
+        if (cached != null) {
+            return cached;
+        }
+        if (!singleFlightEnabled) {
+            Map<String, Object> courseInfo = fetchCourseInfo(courseId);
+            courseInfoCache.put(courseId, courseInfo);
+            return courseInfo;
+        }
+        return fetchCourseInfoSingleFlight(courseId);
+    }
+
+    /**
+     * 同一课程同时只发出一次 GET /api/courses/{id}：第一个缓存未命中的请求发出调用，
+     * 调用完成前到达的请求等待并共用它的结果（或异常），各自拿到结果的副本
+     */
+    private Map<String, Object> fetchCourseInfoSingleFlight(String courseId) {
+        singleFlightLookups.incrementAndGet();
+        CompletableFuture<Map<String, Object>> call = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> inFlight = inFlightLookups.putIfAbsent(courseId, call);
+        if (inFlight != null) {
+            singleFlightCoalesced.incrementAndGet();
+            try {
+                return new HashMap<>(inFlight.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            // 上一次调用可能刚写入缓存并退出
+            Map<String, Object> courseInfo = courseInfoCache.get(courseId);
+            if (courseInfo == null) {
+                singleFlightCalls.incrementAndGet();
+                courseInfo = fetchCourseInfo(courseId);
+                courseInfoCache.put(courseId, courseInfo);
+            }
+            call.complete(courseInfo);
+            return courseInfo;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLookups.remove(courseId, call);
+        }
+    }
+
+    /**
+     * 获取课程信息，用于展示等只读场景：课程服务不可用（调用失败或熔断中）时，
+     * 退回缓存中最后一次获取到的课程信息（已过期），并带上 stale=true；缓存中也没有时照常抛出异常
+     */
+    public Map<String, Object> getCourseInfoOrStale(String courseId) {
+        try {
+            return getCourseInfo(courseId);
+        } catch (ResourceNotFoundException e) {
+            throw e;
+        } catch (BusinessException e) {
+            Map<String, Object> stale = courseInfoCache.getStale(courseId);
+            if (stale == null) {
+                throw e;
+            }
+            staleFallbacks.incrementAndGet();
+            return stale;
+        }
+    }
+
+    /**
+     * 获取课程的静态信息（名称、教师、时间安排等），用于检查时间冲突等不关心人数的场景：
+     * 静态字段在 static-ttl 内直接从缓存返回，人数字段过期不会触发调用；返回的信息中人数字段可能缺失
+     */
+    public Map<String, Object> getCourseStaticInfo(String courseId) {
+        Map<String, Object> cached = courseInfoCache.getStatic(courseId);
+        return cached != null ? cached : getCourseInfo(courseId);
+    }
+
+    /**
+     * 批量获取课程的静态信息，静态字段未过期的课程直接从缓存返回，其余课程走 {@link #getCourseInfos}
+     */
+    public Map<String, Map<String, Object>> getCourseStaticInfos(Collection<String> courseIds) {
+        Map<String, Map<String, Object>> courseInfos = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String courseId : new LinkedHashSet<>(courseIds)) {
+            Map<String, Object> cached = courseInfoCache.getStatic(courseId);
+            if (cached != null) {
+                courseInfos.put(courseId, cached);
+            } else {
+                missing.add(courseId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            courseInfos.putAll(getCourseInfos(missing));
+        }
+        return courseInfos;
+    }
+
+    /**
+     * 批量获取课程信息：缓存未命中的课程去重后按 catalog-service.batch-size 分块，
+     * 最多 fan-out.parallelism 路并行调用 /api/courses/batch，整体最多等待 fan-out.deadline（从进入方法开始计算，
+     * 包括所有请求合计的并发达到 fan-out.max-concurrency 时等待名额的时间，等不到名额的分块不再调用）。
+     * 超时或获取失败（含熔断中）的课程退回缓存中最后一次获取到的课程信息（带 stale=true），缓存中也没有的不出现在返回结果中；
+     * 不存在的课程不出现在返回结果中；超时后仍在进行的调用完成后照常写入缓存
+     */
+    public Map<String, Map<String, Object>> getCourseInfos(Collection<String> courseIds) {
+        long deadline = System.nanoTime() + fanOutDeadline.toNanos();
+        Map<String, Map<String, Object>> courseInfos = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String courseId : new LinkedHashSet<>(courseIds)) {
+            Map<String, Object> cached = courseInfoCache.get(courseId);
+            if (cached != null) {
+                courseInfos.put(courseId, cached);
+            } else {
+                missing.add(courseId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return courseInfos;
+        }
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += catalogBatchSize) {
+            chunks.add(missing.subList(from, Math.min(from + catalogBatchSize, missing.size())));
+        }
+
+        // 每一路按顺序处理分到的分块，路数即本次请求对课程服务的最大并发
+        Map<String, Map<String, Object>> fetched = new ConcurrentHashMap<>();
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        int lanes = Math.min(fanOutParallelism, chunks.size());
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int lane = 0; lane < lanes; lane++) {
+            List<List<String>> laneChunks = new ArrayList<>();
+            for (int i = lane; i < chunks.size(); i += lanes) {
+                laneChunks.add(chunks.get(i));
+            }
+            // 全局并发已满时最多等到 deadline，等不到的这一路不再发出，课程按调用失败处理
+            if (!acquireFanOutPermit(deadline)) {
+                logger.warn("课程服务批量调用并发已满，跳过: courses={}", laneChunks.stream().mapToInt(List::size).sum());
+                laneChunks.forEach(failed::addAll);
+                continue;
+            }
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    laneChunks.forEach(chunk -> fetchChunk(chunk, fetched, failed));
+                } finally {
+                    fanOutPermits.release();
+                }
+            }, fanOutExecutor));
+        }
+
+        boolean completed = false;
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            completed = true;
+        } catch (TimeoutException e) {
+            logger.warn("批量获取课程信息超时: missing={}, fetched={}, deadline={}",
+                    missing.size(), fetched.size(), fanOutDeadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warn("批量获取课程信息失败: {}", e.getMessage());
+        }
+
+        courseInfos.putAll(fetched);
+        // 全部完成时只有调用失败的课程用过期信息；没有等到全部完成时所有未取到的课程都用过期信息
+        for (String courseId : missing) {
+            if (!courseInfos.containsKey(courseId) && (!completed || failed.contains(courseId))) {
+                Map<String, Object> stale = courseInfoCache.getStale(courseId);
+                if (stale != null) {
+                    staleFallbacks.incrementAndGet();
+                    courseInfos.put(courseId, stale);
+                }
+            }
+        }
+        return courseInfos;
+    }
+
+    /**
+     * 原子占座：调用 POST /api/courses/{id}/seats/reserve，成功后让本地缓存的人数字段失效
+     * @return true 占座成功；false 课程已满
+     */
+    public boolean reserveSeat(String courseId) {
+        String url = catalogServiceUrl + "/api/courses/" + courseId + "/seats/reserve";
+        logger.debug("调用课程服务占座: {}", url);
+
+        try {
+            circuitBreaker.call(() -> restTemplate.postForEntity(url, null, Map.class));
+            return true;
+        } catch (HttpClientErrorException.Conflict e) {
+            return false;
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ResourceNotFoundException("课程不存在: " + courseId);
+        } catch (CircuitOpenException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("占座失败: courseId={}, error={}", courseId, e.getMessage());
+            throw new BusinessException("课程服务暂时不可用，请稍后重试");
+        } finally {
+            courseInfoCache.invalidateCounts(courseId);
+        }
+    }
+
+    /**
+     * 批量占座：调用 POST /api/courses/{id}/seats/reserve?count=n，剩余座位不足时只占剩余的部分
+     * @return 实际占到的座位数，0 表示课程已满
+     */
+    public int reserveSeats(String courseId, int count) {
+        String url = catalogServiceUrl + "/api/courses/" + courseId + "/seats/reserve?count=" + count;
+        logger.debug("调用课程服务批量占座: {}", url);
+
+        try {
+            Map<String, Object> response = circuitBreaker.call(() -> restTemplate.postForObject(url, null, Map.class));
+            if (response != null && response.get("data") instanceof Number granted) {
+                return granted.intValue();
+            }
+            throw new BusinessException("课程服务返回的占座结果无效");
+        } catch (HttpClientErrorException.Conflict e) {
+            return 0;
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ResourceNotFoundException("课程不存在: " + courseId);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("批量占座失败: courseId={}, count={}, error={}", courseId, count, e.getMessage());
+            throw new BusinessException("课程服务暂时不可用，请稍后重试");
+        } finally {
+            courseInfoCache.invalidateCounts(courseId);
+        }
+    }
+
+    /**
+     * 批量应用多门课程的人数变化：调用 POST /api/courses/seats/deltas，课程服务在一个事务中完成
+     * @return 每门课程实际变化的人数，不存在的课程不出现在结果中
+     */
+    public Map<String, Integer> applySeatDeltas(Map<String, Integer> deltas) {
+        return postSeatChanges("/api/courses/seats/deltas", deltas, deltas.keySet());
+    }
+
+    /**
+     * 按事件投递 outbox 中的人数变化：调用 POST /api/courses/seats/events，课程服务按课程合并后在一个事务中完成，
+     * 并记录已应用的事件ID，同一事件重复投递只应用一次
+     * @return 每门课程实际变化的人数，不存在的课程不出现在结果中
+     */
+    public Map<String, Integer> applySeatEvents(List<SeatOutboxEvent> events) {
+        List<Map<String, Object>> body = events.stream()
+                .map(event -> Map.<String, Object>of(
+                        "id", event.getId(), "courseId", event.getCourseId(), "delta", event.getDelta()))
+                .toList();
+        return postSeatChanges("/api/courses/seats/events", body,
+                events.stream().map(SeatOutboxEvent::getCourseId).collect(Collectors.toSet()));
+    }
+
+    private Map<String, Integer> postSeatChanges(String path, Object body, Collection<String> courseIds) {
+        String url = catalogServiceUrl + path;
+        logger.debug("调用课程服务批量应用人数变化: {}, courses={}", url, courseIds.size());
+
+        try {
+            Map<String, Object> response = circuitBreaker.call(() -> restTemplate.postForObject(url, body, Map.class));
+            if (response != null && response.get("data") instanceof Map<?, ?> data) {
+                Map<String, Integer> applied = new HashMap<>();
+                data.forEach((courseId, change) -> applied.put((String) courseId, ((Number) change).intValue()));
+                return applied;
+            }
+            throw new BusinessException("课程服务返回的人数变化结果无效");
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("批量应用人数变化失败: courses={}, error={}", courseIds.size(), e.getMessage());
+            throw new BusinessException("课程服务暂时不可用，请稍后重试");
+        } finally {
+            courseIds.forEach(courseInfoCache::invalidateCounts);
+        }
+    }
+
+    public Map<String, Object> cacheStats() {
+        return courseInfoCache.stats();
+    }
+
+    /**
+     * 熔断器状态、状态切换次数、被拒绝的调用数，以及改用过期课程信息的次数
+     */
+    public Map<String, Object> circuitBreakerStats() {
+        Map<String, Object> stats = circuitBreaker.stats();
+        stats.put("staleFallbacks", staleFallbacks.get());
+        return stats;
+    }
+
+    /**
+     * 单门课程查询合并：缓存未命中的查询数、实际发出的调用数、共用其他请求调用结果的查询数及其占比
+     */
+    public Map<String, Object> singleFlightStats() {
+        long lookups = singleFlightLookups.get();
+        long coalesced = singleFlightCoalesced.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", singleFlightEnabled);
+        stats.put("lookups", lookups);
+        stats.put("calls", singleFlightCalls.get());
+        stats.put("coalesced", coalesced);
+        stats.put("coalescingRatio", lookups == 0 ? 0.0 : (double) coalesced / lookups);
+        stats.put("inFlight", inFlightLookups.size());
+        return stats;
+    }
+
+    private Map<String, Object> fetchCourseInfo(String courseId) {
+        String url = catalogServiceUrl + "/api/courses/" + courseId;
+        logger.debug("调用课程服务: {}", url);
+
+        try {
+            Map<String, Object> response = circuitBreaker.call(() -> restTemplate.getForObject(url, Map.class));
+            if (response != null && response.get("data") instanceof Map<?, ?> course) {
+                return toCourseInfo(course);
+            } else {
+                throw new ResourceNotFoundException("课程不存在: " + courseId);
+            }
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ResourceNotFoundException("课程不存在: " + courseId);
+        } catch (ResourceNotFoundException | CircuitOpenException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("调用课程服务失败: {}", e.getMessage());
+            throw new BusinessException("课程服务暂时不可用，请稍后重试");
+        }
+    }
+
+    private boolean acquireFanOutPermit(long deadline) {
+        try {
+            return fanOutPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void fetchChunk(List<String> chunk, Map<String, Map<String, Object>> fetched, Set<String> failed) {
+        try {
+            for (Map<String, Object> courseInfo : fetchCourseInfos(chunk)) {
+                String courseId = (String) courseInfo.get("id");
+                courseInfoCache.put(courseId, courseInfo);
+                fetched.put(courseId, courseInfo);
+            }
+        } catch (Exception e) {
+            failed.addAll(chunk);
+            logger.warn("批量获取课程信息失败: size={}, error={}", chunk.size(), e.getMessage());
+        }
+    }
+
+    private List<Map<String, Object>> fetchCourseInfos(List<String> courseIds) {
+        String url = catalogServiceUrl + "/api/courses/batch";
+        logger.debug("批量调用课程服务: {}, size={}", url, courseIds.size());
+
+        Map<String, Object> response = circuitBreaker.call(() -> restTemplate.postForObject(url, courseIds, Map.class));
+        List<Map<String, Object>> courseInfos = new ArrayList<>();
+        if (response != null && response.get("data") instanceof List<?> data) {
+            for (Object item : data) {
+                if (item instanceof Map<?, ?> course) {
+                    courseInfos.add(toCourseInfo(course));
+                }
+            }
+        }
+        return courseInfos;
+    }
+
+    // 响应按原始 Map 反序列化，课程对象逐项复制成 Map<String, Object>，不做未检查的强制转换
+    private static Map<String, Object> toCourseInfo(Map<?, ?> course) {
+        Map<String, Object> courseInfo = new LinkedHashMap<>();
+        course.forEach((key, value) -> courseInfo.put((String) key, value));
+        return courseInfo;
+    }
+}
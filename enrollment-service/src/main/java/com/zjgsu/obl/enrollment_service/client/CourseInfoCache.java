@@ -0,0 +1,210 @@
+package com.zjgsu.obl.enrollment_service.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 课程信息本地缓存（按访问顺序 LRU 淘汰，容量有上限）
+ *
+ * 每条缓存分两部分保存：课程名称、教师、时间安排等静态字段按 static-ttl（分钟级）过期；
+ * capacity / enrolledCount 等人数字段按 count-ttl（秒级）单独过期。
+ */
+@Component
+public class CourseInfoCache {
+    // 会频繁变化的人数相关字段，其余字段视为静态信息
+    private static final Set<String> COUNT_FIELDS = Set.of("capacity", "enrolled", "enrolledCount");
+
+    @Value("${catalog-service.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${catalog-service.cache.static-ttl:10m}")
+    private Duration staticTtl;
+
+    @Value("${catalog-service.cache.count-ttl:5s}")
+    private Duration countTtl;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staticHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong countMisses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 获取完整课程信息，静态字段和人数字段都未过期才算命中
+     */
+    public Map<String, Object> get(String courseId) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Entry entry = entries.get(courseId);
+            if (entry == null || entry.isStaticExpired(now)) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (entry.isCountExpired(now)) {
+                countMisses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.merge();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 只获取静态字段（不含人数），人数字段过期不影响命中；未命中时由调用方改走完整查询，在那里计入 misses
+     */
+    public Map<String, Object> getStatic(String courseId) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Entry entry = entries.get(courseId);
+            if (entry == null || entry.isStaticExpired(now)) {
+                return null;
+            }
+            staticHits.incrementAndGet();
+            return new HashMap<>(entry.staticFields);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取最后一次缓存的课程信息，不论是否过期，并带上 stale=true；课程服务不可用时用于只读查询
+     */
+    public Map<String, Object> getStale(String courseId) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(courseId);
+            if (entry == null) {
+                return null;
+            }
+            Map<String, Object> courseInfo = entry.merge();
+            courseInfo.put("stale", true);
+            return courseInfo;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(String courseId, Map<String, Object> courseInfo) {
+        Map<String, Object> staticFields = new HashMap<>();
+        Map<String, Object> countFields = new HashMap<>();
+        courseInfo.forEach((key, value) -> {
+            if (COUNT_FIELDS.contains(key)) {
+                countFields.put(key, value);
+            } else {
+                staticFields.put(key, value);
+            }
+        });
+
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            entries.put(courseId, new Entry(staticFields, countFields,
+                    now + staticTtl.toNanos(), now + countTtl.toNanos()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 本服务修改了课程人数后调用：让该课程的人数字段立即过期，静态字段保留
+     */
+    public void invalidateCounts(String courseId) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(courseId);
+            if (entry != null) {
+                entry.countExpiresAt = System.nanoTime();
+                invalidations.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(String courseId) {
+        lock.lock();
+        try {
+            if (entries.remove(courseId) != null) {
+                invalidations.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("size", entries.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.get());
+        stats.put("staticHits", staticHits.get());
+        stats.put("misses", misses.get());
+        stats.put("countMisses", countMisses.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private static class Entry {
+        private final Map<String, Object> staticFields;
+        private final Map<String, Object> countFields;
+        private final long staticExpiresAt;
+        private long countExpiresAt;
+
+        Entry(Map<String, Object> staticFields, Map<String, Object> countFields,
+              long staticExpiresAt, long countExpiresAt) {
+            this.staticFields = staticFields;
+            this.countFields = countFields;
+            this.staticExpiresAt = staticExpiresAt;
+            this.countExpiresAt = countExpiresAt;
+        }
+
+        boolean isStaticExpired(long now) {
+            return now - staticExpiresAt >= 0;
+        }
+
+        boolean isCountExpired(long now) {
+            return now - countExpiresAt >= 0;
+        }
+
+        Map<String, Object> merge() {
+            Map<String, Object> courseInfo = new HashMap<>(staticFields);
+            courseInfo.putAll(countFields);
+            return courseInfo;
+        }
+    }
+}
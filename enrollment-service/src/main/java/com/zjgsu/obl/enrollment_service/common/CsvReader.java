@@ -0,0 +1,110 @@
+package com.zjgsu.obl.enrollment_service.common;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量 CSV 读取器（RFC 4180）：每次只解析一行记录，支持双引号包裹的字段、字段内的逗号/换行和 "" 转义，
+ * 自动跳过文件开头的 UTF-8 BOM（与导出的 CSV 对应）。内存占用只与单行长度有关
+ */
+public class CsvReader {
+    private static final int EOF = -1;
+
+    private final Reader reader;
+
+    private int pending = -2; // 预读的一个字符，-2 表示没有
+    private long lineNumber;  // 当前记录起始所在的物理行号
+    private long nextLine = 1;
+    private boolean started;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取下一条记录
+     * @return 字段列表；已到文件末尾时返回 null
+     */
+    public List<String> next() throws IOException {
+        if (!started) {
+            started = true;
+            int first = read();
+            if (first != '\uFEFF') {
+                unread(first);
+            }
+        }
+
+        int c = read();
+        if (c == EOF) {
+            return null;
+        }
+        lineNumber = nextLine;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    throw new IllegalArgumentException("CSV 第 " + lineNumber + " 行的引号没有闭合");
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == EOF) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                if (c != EOF) {
+                    nextLine++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * 最近一次 next() 返回的记录在文件中的起始行号（从 1 开始）
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+}
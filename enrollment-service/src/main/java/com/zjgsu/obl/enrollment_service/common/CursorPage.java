@@ -0,0 +1,72 @@
+package com.zjgsu.obl.enrollment_service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标（keyset）分页结果：按主键升序取一页，next 为下一页的不透明游标，没有更多数据时为 null。
+ * 翻页条件是 "id > 上一页最后一条的 id"，不论翻到第几页都只扫描一页的数据
+ */
+public class CursorPage<T> {
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final List<T> items;
+    private final String next;
+
+    private CursorPage(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * @param fetched 按主键升序查询出的数据，应比 size 多取一条，用于判断是否还有下一页
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int size, Function<T, String> keyExtractor) {
+        if (fetched.size() <= size) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> items = fetched.subList(0, size);
+        return new CursorPage<>(items, encode(keyExtractor.apply(items.get(size - 1))));
+    }
+
+    /**
+     * 解析游标，返回上一页最后一条的主键；游标为空表示第一页，返回空字符串（小于任何主键）
+     */
+    public static String decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return "";
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                return decoded.substring(CURSOR_PREFIX.length());
+            }
+        } catch (IllegalArgumentException e) {
+            // 落到下面统一报错
+        }
+        throw new IllegalArgumentException("无效的分页游标: " + cursor);
+    }
+
+    public static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 计算实际页大小：未指定时取默认值，超过上限时按上限处理
+     */
+    public static int resolveSize(Integer size, int defaultSize, int maxSize) {
+        if (size == null) {
+            return defaultSize;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("分页大小必须大于0");
+        }
+        return Math.min(size, maxSize);
+    }
+
+    public List<T> getItems() { return items; }
+    public String getNext() { return next; }
+}
@@ -0,0 +1,103 @@
+package com.zjgsu.obl.enrollment_service.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 调用 catalog-service 使用的 HTTP 客户端：带连接池、超时和长连接复用，
+ * 避免课程服务变慢时选课线程被无限期占用
+ */
+@Configuration
+public class CatalogHttpClientConfig {
+    @Autowired
+    private Environment environment;
+
+    @Value("${catalog-service.http.max-total:200}")
+    private int maxTotal;
+
+    @Value("${catalog-service.http.max-per-route:100}")
+    private int maxPerRoute;
+
+    @Value("${catalog-service.http.connect-timeout:1s}")
+    private Duration connectTimeout;
+
+    @Value("${catalog-service.http.read-timeout:3s}")
+    private Duration readTimeout;
+
+    @Value("${catalog-service.http.acquire-timeout:500ms}")
+    private Duration acquireTimeout;
+
+    @Value("${catalog-service.http.keep-alive:30s}")
+    private Duration keepAlive;
+
+    @Value("${catalog-service.http.http2:false}")
+    private boolean http2;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager catalogConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(connectTimeout))
+                        .setSocketTimeout(Timeout.of(readTimeout))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(PoolingHttpClientConnectionManager catalogConnectionManager) {
+        if (http2) {
+            // HTTP/2 使用 JDK HttpClient，单连接多路复用，不经过连接池
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(connectTimeout);
+            if (Threading.VIRTUAL.isActive(environment)) {
+                // 虚拟线程模式下，JDK HttpClient 的异步回调也交给虚拟线程处理
+                builder.executor(new VirtualThreadTaskExecutor("catalog-http-"));
+            }
+            HttpClient httpClient = builder.build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(readTimeout);
+            return new RestTemplate(requestFactory);
+        }
+
+        // 经典阻塞 I/O 在调用线程上执行；HttpClient 5.5 / HttpCore 5.3 的连接池使用 ReentrantLock，
+        // 虚拟线程等待连接或读取响应时不会被固定在载体线程上
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(catalogConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(acquireTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.of(keepAlive))
+                .evictIdleConnections(TimeValue.of(keepAlive))
+                .evictExpiredConnections()
+                .build();
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+}
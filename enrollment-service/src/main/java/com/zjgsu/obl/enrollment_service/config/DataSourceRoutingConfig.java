@@ -0,0 +1,77 @@
+package com.zjgsu.obl.enrollment_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 读写分离数据源（datasource.routing.enabled=true 时生效，否则使用 Spring Boot 默认的单一连接池）：
+ * 主库连接池沿用 spring.datasource.* 配置，从库连接池使用 datasource.replica.*，用户名、密码未配置时与主库相同
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+    @Value("${datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${datasource.routing.read-your-writes-window:2s}")
+    private Duration readYourWritesWindow;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites() {
+        return new ReadYourWrites(readYourWritesWindow);
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                        @Qualifier("replicaDataSource") DataSource replica,
+                                                        ReadYourWrites readYourWrites) {
+        return new ReadWriteRoutingDataSource(primary, replica, readYourWrites);
+    }
+
+    /**
+     * JPA、JdbcTemplate 使用的数据源：延迟到执行第一条语句时才按事务的只读标记选择连接池
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
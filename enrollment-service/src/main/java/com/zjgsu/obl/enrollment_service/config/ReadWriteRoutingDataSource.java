@@ -0,0 +1,56 @@
+package com.zjgsu.obl.enrollment_service.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读写分离：只读事务（@Transactional(readOnly = true)）的连接取自从库连接池，其余（写事务、事务外的 JDBC 操作）取自主库。
+ *
+ * 事务的只读标记在开启事务之后才设置，必须包在 LazyConnectionDataSourceProxy 里，
+ * 等到执行第一条语句、真正需要物理连接时再选择连接池
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route { PRIMARY, REPLICA }
+
+    private final ReadYourWrites readYourWrites;
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong pinnedReads = new AtomicLong();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (!readYourWrites.isPinned()) {
+                replicaConnections.incrementAndGet();
+                return Route.REPLICA;
+            }
+            // 写后读窗口内的只读事务仍读主库
+            pinnedReads.incrementAndGet();
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            readYourWrites.afterCommit();
+        }
+        primaryConnections.incrementAndGet();
+        return Route.PRIMARY;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primaryConnections", primaryConnections.get());
+        stats.put("replicaConnections", replicaConnections.get());
+        stats.put("pinnedReads", pinnedReads.get());
+        return stats;
+    }
+}
@@ -0,0 +1,108 @@
+package com.zjgsu.obl.enrollment_service.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 写后读一致：写事务提交后的一段时间（窗口）内，同一客户端的只读事务仍然走主库，
+ * 避免刚写入的数据因为从库复制延迟而读不到。
+ *
+ * 写事务提交后，当前线程在窗口内直接读主库（请求结束时清除，后台线程到期自动失效）；
+ * 同时通过 Cookie 把窗口的截止时间带给客户端，之后的请求即使落到其他实例，截止前也读主库
+ */
+public class ReadYourWrites extends OncePerRequestFilter {
+    public static final String COOKIE_NAME = "rw-primary-until";
+
+    private static final ThreadLocal<Long> pinnedUntil = new ThreadLocal<>();
+
+    private final Duration window;
+
+    public ReadYourWrites(Duration window) {
+        this.window = window;
+    }
+
+    /**
+     * 当前线程是否处于写后读窗口内
+     */
+    public boolean isPinned() {
+        Long until = pinnedUntil.get();
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * 当前写事务提交后开启写后读窗口，回滚时不开启
+     */
+    public void afterCommit() {
+        if (window.isZero() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long until = System.currentTimeMillis() + window.toMillis();
+                pinnedUntil.set(until);
+                addCookie(until);
+            }
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // 截止时间超出一个窗口的 Cookie 不是本服务写入的，忽略
+        Long until = cookieValue(request);
+        if (until != null && until <= System.currentTimeMillis() + window.toMillis()) {
+            pinnedUntil.set(until);
+        } else {
+            pinnedUntil.remove();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            pinnedUntil.remove();
+        }
+    }
+
+    private void addCookie(long until) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletResponse response = attributes.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(until));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, window.toSeconds() + 1));
+        response.addCookie(cookie);
+    }
+
+    private static Long cookieValue(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -1,23 +1,63 @@
 package com.zjgsu.obl.enrollment_service.controller;
 
 import com.zjgsu.obl.enrollment_service.common.ApiResponse;
+import com.zjgsu.obl.enrollment_service.common.CursorPage;
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentRequest;
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentResult;
+import com.zjgsu.obl.enrollment_service.dto.CourseActiveCount;
+import com.zjgsu.obl.enrollment_service.dto.ListView;
 import com.zjgsu.obl.enrollment_service.model.Enrollment;
 import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentTicket;
+import com.zjgsu.obl.enrollment_service.model.ExportFormat;
+import com.zjgsu.obl.enrollment_service.model.TicketStatus;
+import com.zjgsu.obl.enrollment_service.service.AsyncEnrollmentService;
+import com.zjgsu.obl.enrollment_service.service.BulkEnrollmentService;
+import com.zjgsu.obl.enrollment_service.service.EnrollmentExportService;
 import com.zjgsu.obl.enrollment_service.service.EnrollmentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/enrollments")
 public class EnrollmentController {
+    // 查询凭证时最长等待处理结果的时间
+    private static final long MAX_TICKET_WAIT_MS = 30000;
+
     @Autowired
     private EnrollmentService enrollmentService;
 
+    @Autowired
+    private AsyncEnrollmentService asyncEnrollmentService;
+
+    @Autowired
+    private EnrollmentExportService enrollmentExportService;
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Value("${enrollment.async.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${pagination.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${pagination.max-size:500}")
+    private int maxPageSize;
+
     // 学生选课
     @PostMapping
     public ResponseEntity<ApiResponse<Enrollment>> createEnrollment(@RequestBody Map<String, String> request) {
@@ -39,6 +79,55 @@ public class EnrollmentController {
         }
     }
 
+    // 新增：批量选课（一门课程多名学生，或课程-学生对列表），返回每一项的结果
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<BulkEnrollmentResult>> bulkEnroll(@RequestBody BulkEnrollmentRequest request) {
+        BulkEnrollmentResult result = bulkEnrollmentService.enroll(request);
+        return ResponseEntity.ok(ApiResponse.success("批量选课完成", result));
+    }
+
+    // 新增：异步选课，立即返回 202 和受理凭证；队列已满时返回 429
+    @PostMapping("/async")
+    public ResponseEntity<ApiResponse<EnrollmentTicket>> submitEnrollment(@RequestBody Map<String, String> request) {
+        String courseId = request.get("courseId");
+        String studentId = request.get("studentId");
+
+        if (courseId == null || studentId == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(ApiResponse.error(400, "课程ID和学生ID不能为空"));
+        }
+
+        Optional<EnrollmentTicket> ticket = asyncEnrollmentService.submit(courseId, studentId);
+        if (ticket.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(ApiResponse.error(429, "选课请求过多，请稍后重试"));
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/enrollments/tickets/" + ticket.get().getId()))
+                .body(ApiResponse.success("选课请求已受理", ticket.get()));
+    }
+
+    // 新增：查询异步选课结果，waitMs > 0 时最多等待该时长直到处理完成
+    @GetMapping("/tickets/{ticketId}")
+    public CompletableFuture<ResponseEntity<ApiResponse<EnrollmentTicket>>> getTicket(
+            @PathVariable String ticketId,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        Optional<EnrollmentTicket> ticketOpt = asyncEnrollmentService.findTicket(ticketId);
+        if (ticketOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(404, "选课凭证不存在或已过期")));
+        }
+
+        EnrollmentTicket ticket = ticketOpt.get();
+        if (waitMs <= 0 || ticket.getStatus() != TicketStatus.PENDING) {
+            return CompletableFuture.completedFuture(ResponseEntity.ok(ApiResponse.success(ticket)));
+        }
+        return ticket.getCompletion().copy()
+                .completeOnTimeout(ticket, Math.min(waitMs, MAX_TICKET_WAIT_MS), TimeUnit.MILLISECONDS)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result)));
+    }
+
     // 学生退课
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<Void>> deleteEnrollment(@PathVariable String id) {
@@ -57,32 +146,81 @@ public class EnrollmentController {
         }
     }
 
-    // 查询所有选课记录
+    // 新增：分页查询选课记录，默认按游标分页（cursor + size），传 page 时按偏移量分页；view=summary 返回选课摘要
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Enrollment>>> getAllEnrollments() {
-        List<Enrollment> enrollments = enrollmentService.findAll();
-        return ResponseEntity.ok(ApiResponse.success(enrollments));
+    public ResponseEntity<ApiResponse<? extends List<?>>> getAllEnrollments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String view) {
+        int pageSize = CursorPage.resolveSize(size, defaultPageSize, maxPageSize);
+        if (ListView.from(view) == ListView.SUMMARY) {
+            return page != null
+                    ? ResponseEntity.ok(ApiResponse.success(enrollmentService.findSummaryPage(page, pageSize)))
+                    : ResponseEntity.ok(ApiResponse.page(enrollmentService.findSummaryPage(cursor, pageSize)));
+        }
+        if (page != null) {
+            return ResponseEntity.ok(ApiResponse.success(enrollmentService.findPage(page, pageSize)));
+        }
+        return ResponseEntity.ok(ApiResponse.page(enrollmentService.findPage(cursor, pageSize)));
     }
 
-    // 按课程查询选课记录
+    // 新增：流式导出选课记录（名单），边读数据库边写响应，format 为 ndjson 或 csv
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEnrollments(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String courseId,
+            @RequestParam(required = false) EnrollmentStatus status) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        String filename = (courseId != null ? "enrollments-" + courseId : "enrollments") + "." + exportFormat.getExtension();
+
+        StreamingResponseBody body = out -> enrollmentExportService.export(courseId, status, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    // 按课程查询选课记录，按主键游标分页
     @GetMapping("/course/{courseId}")
-    public ResponseEntity<ApiResponse<List<Enrollment>>> getEnrollmentsByCourse(@PathVariable String courseId) {
-        List<Enrollment> enrollments = enrollmentService.findByCourseId(courseId);
-        return ResponseEntity.ok(ApiResponse.success(enrollments));
+    public ResponseEntity<ApiResponse<? extends List<?>>> getEnrollmentsByCourse(
+            @PathVariable String courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String view) {
+        int pageSize = CursorPage.resolveSize(size, defaultPageSize, maxPageSize);
+        if (ListView.from(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(ApiResponse.page(enrollmentService.findSummaryPageByCourseId(courseId, cursor, pageSize)));
+        }
+        return ResponseEntity.ok(ApiResponse.page(enrollmentService.findPageByCourseId(courseId, cursor, pageSize)));
     }
 
-    // 按学生查询选课记录
+    // 按学生查询选课记录，按主键游标分页
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<ApiResponse<List<Enrollment>>> getEnrollmentsByStudent(@PathVariable String studentId) {
-        List<Enrollment> enrollments = enrollmentService.findByStudentId(studentId);
-        return ResponseEntity.ok(ApiResponse.success(enrollments));
+    public ResponseEntity<ApiResponse<? extends List<?>>> getEnrollmentsByStudent(
+            @PathVariable String studentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String view) {
+        int pageSize = CursorPage.resolveSize(size, defaultPageSize, maxPageSize);
+        if (ListView.from(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(ApiResponse.page(enrollmentService.findSummaryPageByStudentId(studentId, cursor, pageSize)));
+        }
+        return ResponseEntity.ok(ApiResponse.page(enrollmentService.findPageByStudentId(studentId, cursor, pageSize)));
     }
 
-    // 新增：按状态查询选课记录
+    // 新增：按状态查询选课记录，按主键游标分页
     @GetMapping("/status/{status}")
-    public ResponseEntity<ApiResponse<List<Enrollment>>> getEnrollmentsByStatus(@PathVariable EnrollmentStatus status) {
-        List<Enrollment> enrollments = enrollmentService.findByStatus(status);
-        return ResponseEntity.ok(ApiResponse.success(enrollments));
+    public ResponseEntity<ApiResponse<? extends List<?>>> getEnrollmentsByStatus(
+            @PathVariable EnrollmentStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String view) {
+        int pageSize = CursorPage.resolveSize(size, defaultPageSize, maxPageSize);
+        if (ListView.from(view) == ListView.SUMMARY) {
+            return ResponseEntity.ok(ApiResponse.page(enrollmentService.findSummaryPageByStatus(status, cursor, pageSize)));
+        }
+        return ResponseEntity.ok(ApiResponse.page(enrollmentService.findPageByStatus(status, cursor, pageSize)));
     }
 
     // 新增：统计课程活跃选课人数
@@ -92,6 +230,25 @@ public class EnrollmentController {
         return ResponseEntity.ok(ApiResponse.success(count));
     }
 
+    // 新增：按课程分组统计活跃选课数（一次 GROUP BY），按课程ID游标分页；没有活跃选课的课程不返回
+    @GetMapping("/active-counts")
+    public ResponseEntity<ApiResponse<List<CourseActiveCount>>> getActiveCounts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        int pageSize = CursorPage.resolveSize(size, defaultPageSize, maxPageSize);
+        return ResponseEntity.ok(ApiResponse.page(enrollmentService.countActiveGroupedByCourse(cursor, pageSize)));
+    }
+
+    // 新增：统计指定课程的活跃选课数（请求体为课程ID数组），每门课程返回一条，没有选课的为 0
+    @PostMapping("/active-counts")
+    public ResponseEntity<ApiResponse<List<CourseActiveCount>>> getActiveCountsByCourses(
+            @RequestBody List<String> courseIds) {
+        if (courseIds.size() > maxPageSize) {
+            throw new IllegalArgumentException("单次最多统计 " + maxPageSize + " 门课程");
+        }
+        return ResponseEntity.ok(ApiResponse.success(enrollmentService.countActiveGroupedByCourse(courseIds)));
+    }
+
     // 新增：检查学生是否已选某课程
     @GetMapping("/check")
     public ResponseEntity<ApiResponse<Boolean>> checkEnrollmentExists(
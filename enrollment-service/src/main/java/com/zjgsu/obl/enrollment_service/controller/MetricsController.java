@@ -0,0 +1,105 @@
+package com.zjgsu.obl.enrollment_service.controller;
+
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.common.ApiResponse;
+import com.zjgsu.obl.enrollment_service.config.CatalogHttpClientConfig;
+import com.zjgsu.obl.enrollment_service.config.ReadWriteRoutingDataSource;
+import com.zjgsu.obl.enrollment_service.service.SeatDeltaCoalescer;
+import com.zjgsu.obl.enrollment_service.service.SeatOutbox;
+import com.zjgsu.obl.enrollment_service.service.StudentTimetableCache;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager catalogConnectionManager;
+
+    @Autowired
+    private CatalogHttpClientConfig catalogHttpClientConfig;
+
+    @Autowired
+    private StudentTimetableCache studentTimetableCache;
+
+    @Autowired
+    private SeatOutbox seatOutbox;
+
+    @Autowired
+    private SeatDeltaCoalescer seatDeltaCoalescer;
+
+    // 只在开启读写分离时存在
+    @Autowired(required = false)
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    // 课程信息缓存命中/未命中/淘汰统计
+    @GetMapping("/course-cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCourseCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(catalogClient.cacheStats()));
+    }
+
+    // 学生课表缓存命中/构建次数及拦截的时间冲突数
+    @GetMapping("/timetable-cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getTimetableCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(studentTimetableCache.stats()));
+    }
+
+    // 课程服务熔断器：当前状态、状态切换次数、被拒绝的调用数和改用过期课程信息的次数
+    @GetMapping("/catalog-circuit-breaker")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCatalogCircuitBreakerStats() {
+        return ResponseEntity.ok(ApiResponse.success(catalogClient.circuitBreakerStats()));
+    }
+
+    // 单门课程查询合并：缓存未命中的查询中有多少共用了其他请求的调用
+    @GetMapping("/catalog-single-flight")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCatalogSingleFlightStats() {
+        return ResponseEntity.ok(ApiResponse.success(catalogClient.singleFlightStats()));
+    }
+
+    // 人数变化 outbox 的积压、投递和失败统计
+    @GetMapping("/seat-outbox")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSeatOutboxStats() {
+        return ResponseEntity.ok(ApiResponse.success(seatOutbox.stats()));
+    }
+
+    // 占座合并的请求数、提交次数和课程写入次数统计
+    @GetMapping("/seat-coalescer")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSeatCoalescerStats() {
+        return ResponseEntity.ok(ApiResponse.success(seatDeltaCoalescer.stats()));
+    }
+
+    // 课程服务 HTTP 连接池统计（HTTP/2 模式下不使用连接池）
+    @GetMapping("/catalog-pool")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCatalogPoolStats() {
+        PoolStats totalStats = catalogConnectionManager.getTotalStats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("http2", catalogHttpClientConfig.isHttp2());
+        stats.put("leased", totalStats.getLeased());
+        stats.put("pending", totalStats.getPending());
+        stats.put("available", totalStats.getAvailable());
+        stats.put("max", totalStats.getMax());
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    // 读写分离：主库/从库分配的连接数，以及写后读窗口内改走主库的只读事务数
+    @GetMapping("/datasource-routing")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getDataSourceRoutingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", routingDataSource != null);
+        if (routingDataSource != null) {
+            stats.putAll(routingDataSource.stats());
+        }
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+}
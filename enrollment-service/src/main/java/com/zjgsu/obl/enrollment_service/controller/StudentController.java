@@ -1,14 +1,22 @@
 package com.zjgsu.obl.enrollment_service.controller;
 
 import com.zjgsu.obl.enrollment_service.common.ApiResponse;
+import com.zjgsu.obl.enrollment_service.common.CursorPage;
+import com.zjgsu.obl.enrollment_service.dto.StudentImportResult;
 import com.zjgsu.obl.enrollment_service.model.Student;
 import com.zjgsu.obl.enrollment_service.service.EnrollmentService;
+import com.zjgsu.obl.enrollment_service.service.StudentImportService;
 import com.zjgsu.obl.enrollment_service.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 @RestController
 @RequestMapping("/api/students")
@@ -19,11 +27,41 @@ public class StudentController {
     @Autowired
     private EnrollmentService enrollmentService;
 
-    // 查询所有学生
+    @Autowired
+    private StudentImportService studentImportService;
+
+    @Value("${pagination.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${pagination.max-size:500}")
+    private int maxPageSize;
+
+    // 新增：分页查询学生，默认按游标分页（cursor + size），传 page 时按偏移量分页
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Student>>> getAllStudents() {
-        List<Student> students = studentService.findAll();
-        return ResponseEntity.ok(ApiResponse.success(students));
+    public ResponseEntity<ApiResponse<List<Student>>> getAllStudents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer page) {
+        int pageSize = CursorPage.resolveSize(size, defaultPageSize, maxPageSize);
+        if (page != null) {
+            return ResponseEntity.ok(ApiResponse.success(studentService.findPage(page, pageSize)));
+        }
+        return ResponseEntity.ok(ApiResponse.page(studentService.findPage(cursor, pageSize)));
+    }
+
+    // 新增：CSV 批量导入学生（multipart 上传 file 字段），按块校验、批量写入并提交，返回新建/重复/无效行统计
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<StudentImportResult>> importStudents(@RequestParam("file") MultipartFile file)
+            throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return ResponseEntity.ok(ApiResponse.success("学生导入完成", studentImportService.importCsv(input)));
+        }
+    }
+
+    // 新增：CSV 批量导入学生（请求体直接是 CSV 内容）
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ApiResponse<StudentImportResult>> importStudentsFromBody(InputStream input) {
+        return ResponseEntity.ok(ApiResponse.success("学生导入完成", studentImportService.importCsv(input)));
     }
 
     // 根据ID查询学生
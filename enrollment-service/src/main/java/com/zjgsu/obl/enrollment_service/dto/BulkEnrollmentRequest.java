@@ -0,0 +1,16 @@
+package com.zjgsu.obl.enrollment_service.dto;
+
+import java.util.List;
+
+/**
+ * 批量选课请求：courseId + studentIds 表示把多名学生选入同一门课程，
+ * items 为任意课程-学生对；两种写法可以同时使用
+ */
+public record BulkEnrollmentRequest(
+        String courseId,
+        List<String> studentIds,
+        List<Item> items
+) {
+    public record Item(String courseId, String studentId) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.zjgsu.obl.enrollment_service.dto;
+
+import java.util.List;
+
+/**
+ * 批量选课结果：items 与请求中的顺序一致，每一项单独给出成功的选课ID或失败原因
+ */
+public record BulkEnrollmentResult(
+        int requested,
+        int succeeded,
+        int failed,
+        List<ItemResult> items
+) {
+    public record ItemResult(
+            String courseId,
+            String studentId,
+            boolean success,
+            String enrollmentId,
+            String message
+    ) {
+    }
+}
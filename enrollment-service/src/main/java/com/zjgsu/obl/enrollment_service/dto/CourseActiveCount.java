@@ -0,0 +1,12 @@
+package com.zjgsu.obl.enrollment_service.dto;
+
+/**
+ * 按课程分组的活跃选课数：pending 为 outbox 中尚未投递给课程服务的人数变化之和（退课为负），
+ * 课程服务中的已选人数应为 active - pending，等这些变化投递后即与 active 一致
+ */
+public record CourseActiveCount(
+        String courseId,
+        long active,
+        long pending
+) {
+}
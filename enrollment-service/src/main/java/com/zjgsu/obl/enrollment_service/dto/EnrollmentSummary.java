@@ -0,0 +1,20 @@
+package com.zjgsu.obl.enrollment_service.dto;
+
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * 选课摘要：列表接口 view=summary 时返回，只含学生的学号和姓名，不补充课程信息；
+ * 直接由 JPQL 构造表达式生成，不经过持久化上下文
+ */
+public record EnrollmentSummary(
+        String id,
+        String courseId,
+        String studentUuid,
+        String studentId,
+        String studentName,
+        EnrollmentStatus status,
+        LocalDateTime enrolledAt
+) {
+}
@@ -0,0 +1,20 @@
+package com.zjgsu.obl.enrollment_service.dto;
+
+import java.util.List;
+
+/**
+ * 学生批量导入结果。errors 只保留前 enrollment.import.max-errors 条明细，
+ * 超出时 errorsTruncated 为 true，各类计数仍是全量统计
+ */
+public record StudentImportResult(
+        long totalRows,
+        long created,
+        long duplicates,
+        long invalid,
+        long failed,
+        List<RowError> errors,
+        boolean errorsTruncated
+) {
+    public record RowError(long line, String studentId, String reason) {
+    }
+}
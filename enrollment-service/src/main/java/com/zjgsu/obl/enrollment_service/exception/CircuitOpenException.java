@@ -0,0 +1,17 @@
+package com.zjgsu.obl.enrollment_service.exception;
+
+/**
+ * 课程服务熔断中，调用未发出即被拒绝
+ */
+public class CircuitOpenException extends BusinessException {
+    private final long retryAfterSeconds;
+
+    public CircuitOpenException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,6 +1,7 @@
 package com.zjgsu.obl.enrollment_service.exception;
 
 import com.zjgsu.obl.enrollment_service.common.ApiResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -28,6 +29,15 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    // 课程服务熔断中：直接返回 503，提示客户端多久后重试
+    @ExceptionHandler(CircuitOpenException.class)
+    public ResponseEntity<ApiResponse<Object>> handleCircuitOpenException(CircuitOpenException ex) {
+        ApiResponse<Object> response = ApiResponse.error(503, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response);
+    }
+
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<ApiResponse<Object>> handleResourceNotFoundException(ResourceNotFoundException ex) {
         ApiResponse<Object> response = ApiResponse.error(404, ex.getMessage());
@@ -1,27 +1,30 @@
 package com.zjgsu.obl.enrollment_service.model;
 
 import jakarta.persistence.*;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "enrollments", uniqueConstraints = {
         @UniqueConstraint(columnNames = {"student_id", "course_id"})
+}, indexes = {
+        @Index(name = "idx_enrollments_course_status", columnList = "course_id, status"),
+        @Index(name = "idx_enrollments_student_status", columnList = "student_id, status")
 })
 public class Enrollment {
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
-    @Column(columnDefinition = "VARCHAR(36)", updatable = false, nullable = false)
-    private String id;
+    @TimeOrderedId
+    @Type(BinaryUuidType.class)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private String id; // UUIDv7，按时间递增
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
     private Student student;
 
     @Column(name = "course_id", nullable = false, length = 36)
-    private String courseId;
+    private String courseId; // 课程服务的主键，跨服务引用，保持 36 位字符串形式
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -0,0 +1,86 @@
+package com.zjgsu.obl.enrollment_service.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步选课受理凭证，只保存在内存中
+ */
+public class EnrollmentTicket {
+    private final String id;
+    private final String courseId;
+    private final String studentId;
+    private final LocalDateTime submittedAt;
+
+    private volatile TicketStatus status = TicketStatus.PENDING;
+    private volatile String enrollmentId;
+    private volatile String message;
+    private volatile LocalDateTime completedAt;
+
+    // 处理完成时完成，用于等待结果的查询
+    @JsonIgnore
+    private final CompletableFuture<EnrollmentTicket> completion = new CompletableFuture<>();
+
+    public EnrollmentTicket(String courseId, String studentId) {
+        this.id = UUID.randomUUID().toString();
+        this.courseId = courseId;
+        this.studentId = studentId;
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    public void succeed(String enrollmentId) {
+        this.enrollmentId = enrollmentId;
+        this.message = "选课成功";
+        complete(TicketStatus.SUCCEEDED);
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        complete(TicketStatus.FAILED);
+    }
+
+    private void complete(TicketStatus status) {
+        this.completedAt = LocalDateTime.now();
+        this.status = status;
+        completion.complete(this);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public String getEnrollmentId() {
+        return enrollmentId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public CompletableFuture<EnrollmentTicket> getCompletion() {
+        return completion;
+    }
+}
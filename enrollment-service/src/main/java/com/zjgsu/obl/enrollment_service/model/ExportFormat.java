@@ -0,0 +1,26 @@
+package com.zjgsu.obl.enrollment_service.model;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),  // 每行一个 JSON 对象
+    CSV("text/csv", "csv");                    // 带表头的 CSV（UTF-8 BOM，方便 Excel 直接打开）
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+
+    public static ExportFormat from(String format) {
+        for (ExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("不支持的导出格式: " + format + "，可选 ndjson 或 csv");
+    }
+}
@@ -0,0 +1,95 @@
+package com.zjgsu.obl.enrollment_service.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待投递给课程服务的已选人数变化，与选课记录的修改在同一个本地事务中写入，由后台任务投递（事务性 outbox）
+ */
+@Entity
+@Table(name = "seat_outbox", indexes = {
+        @Index(name = "idx_seat_outbox_course", columnList = "course_id")
+})
+public class SeatOutboxEvent {
+    @Id
+    @TimeOrderedId
+    @Type(BinaryUuidType.class)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private String id; // UUIDv7，按写入顺序递增，同一课程的事件按主键顺序投递
+
+    @Column(name = "course_id", nullable = false, length = 36)
+    private String courseId;
+
+    @Column(nullable = false)
+    private int delta; // 已选人数变化，退课为 -1
+
+    @Column(nullable = false)
+    private int attempts; // 已失败的投递次数
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public SeatOutboxEvent() {
+    }
+
+    public SeatOutboxEvent(String courseId, int delta) {
+        this.courseId = courseId;
+        this.delta = delta;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
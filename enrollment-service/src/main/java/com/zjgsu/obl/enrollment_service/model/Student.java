@@ -1,18 +1,22 @@
 package com.zjgsu.obl.enrollment_service.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "students")
+@Table(name = "students", indexes = {
+        @Index(name = "idx_students_major_grade", columnList = "major, grade")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // 懒加载代理序列化时忽略 Hibernate 内部字段
 public class Student {
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
-    @Column(columnDefinition = "VARCHAR(36)", updatable = false, nullable = false)
-    private String id; // UUID
+    @TimeOrderedId
+    @Type(BinaryUuidType.class)
+    @Column(columnDefinition = "BINARY(16)", updatable = false, nullable = false)
+    private String id; // UUIDv7，按时间递增
 
     @Column(name = "student_id", unique = true, nullable = false, length = 50)
     private String studentId; // 学号
@@ -0,0 +1,7 @@
+package com.zjgsu.obl.enrollment_service.model;
+
+public enum TicketStatus {
+    PENDING,    // 排队处理中
+    SUCCEEDED,  // 选课成功
+    FAILED      // 选课失败
+}
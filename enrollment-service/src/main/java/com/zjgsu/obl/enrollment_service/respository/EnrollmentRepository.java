@@ -1,29 +1,45 @@
 package com.zjgsu.obl.enrollment_service.respository;
 
+import com.zjgsu.obl.enrollment_service.dto.EnrollmentSummary;
 import com.zjgsu.obl.enrollment_service.model.Enrollment;
 import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EnrollmentRepository extends JpaRepository<Enrollment, String> {
+public interface EnrollmentRepository extends JpaRepository<Enrollment, String>, JpaSpecificationExecutor<Enrollment> {
 
-    // 按课程ID查询选课记录
-    List<Enrollment> findByCourseId(String courseId);
+    // student 为懒加载，返回选课列表的查询都通过实体图在同一条 SQL 中连带查出学生，避免逐个学生再查一次
+    @Override
+    @EntityGraph(attributePaths = "student")
+    Optional<Enrollment> findById(String id);
+
+    @Override
+    @EntityGraph(attributePaths = "student")
+    List<Enrollment> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "student")
+    Page<Enrollment> findAll(Pageable pageable);
 
     // 按学生ID查询选课记录
+    @EntityGraph(attributePaths = "student")
     @Query("SELECT e FROM Enrollment e WHERE e.student.id = :studentId")
     List<Enrollment> findByStudentId(@Param("studentId") String studentId);
 
-    // 按状态查询选课记录
-    List<Enrollment> findByStatus(EnrollmentStatus status);
-
     // 按课程ID和状态查询选课记录
+    @EntityGraph(attributePaths = "student")
     List<Enrollment> findByCourseIdAndStatus(String courseId, EnrollmentStatus status);
 
     // 检查是否存在活跃的选课记录
@@ -31,24 +47,77 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, String>
     boolean existsByCourseIdAndStudentIdAndStatus(@Param("courseId") String courseId,
                                                   @Param("studentId") String studentId);
 
+    // 批量选课：一次查出这些学生在该课程上已有的选课记录（任意状态，学生与课程唯一），返回 [学生ID, 状态]
+    @Query("SELECT e.student.id, e.status FROM Enrollment e WHERE e.courseId = :courseId AND e.student.id IN :studentIds")
+    List<Object[]> findStatusesByCourseIdAndStudentIds(@Param("courseId") String courseId,
+                                                      @Param("studentIds") Collection<String> studentIds);
+
+    // 学生的活跃选课课程ID，用于构建课表检查上课时间冲突
+    @Query("SELECT e.courseId FROM Enrollment e WHERE e.student.id = :studentId AND e.status = 'ACTIVE'")
+    List<String> findActiveCourseIdsByStudentId(@Param("studentId") String studentId);
+
+    // 多名学生的活跃选课（学生ID, 课程ID），批量选课时一次构建所有学生的课表
+    @Query("SELECT e.student.id, e.courseId FROM Enrollment e WHERE e.student.id IN :studentIds AND e.status = 'ACTIVE'")
+    List<Object[]> findActiveCourseIdsByStudentIds(@Param("studentIds") Collection<String> studentIds);
+
     // 统计课程的活跃选课人数
     @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.courseId = :courseId AND e.status = 'ACTIVE'")
     long countActiveEnrollmentsByCourse(@Param("courseId") String courseId);
 
+    // 一次 GROUP BY 统计多门课程的活跃选课数（走 course_id, status 索引），没有活跃选课的课程不出现在结果中
+    @Query("SELECT e.courseId, COUNT(e) FROM Enrollment e WHERE e.courseId IN :courseIds AND e.status = 'ACTIVE' "
+            + "GROUP BY e.courseId")
+    List<Object[]> countActiveGroupedByCourse(@Param("courseIds") Collection<String> courseIds);
+
+    // 按课程ID游标分页统计所有有活跃选课的课程
+    @Query("SELECT e.courseId, COUNT(e) FROM Enrollment e WHERE e.courseId > :courseId AND e.status = 'ACTIVE' "
+            + "GROUP BY e.courseId ORDER BY e.courseId")
+    List<Object[]> countActiveGroupedByCourseAfter(@Param("courseId") String courseId, Limit limit);
+
     // 统计学生的选课数量
     @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.student.id = :studentId")
     long countByStudentId(@Param("studentId") String studentId);
 
     // 按学生学号查询选课记录
+    @EntityGraph(attributePaths = "student")
     @Query("SELECT e FROM Enrollment e WHERE e.student.studentId = :studentId")
     List<Enrollment> findByStudentStudentId(@Param("studentId") String studentId);
 
-    // 多条件组合查询
-    @Query("SELECT e FROM Enrollment e WHERE " +
-            "(:courseId IS NULL OR e.courseId = :courseId) AND " +
-            "(:studentId IS NULL OR e.student.studentId = :studentId) AND " +
-            "(:status IS NULL OR e.status = :status)")
-    List<Enrollment> findByMultipleCriteria(@Param("courseId") String courseId,
-                                            @Param("studentId") String studentId,
-                                            @Param("status") EnrollmentStatus status);
-}
\ No newline at end of file
+    // 游标分页：按主键升序取 id 大于游标的前 limit 条
+    @EntityGraph(attributePaths = "student")
+    List<Enrollment> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    // 按课程、学生、状态过滤的游标分页，同样按主键升序取 id 大于游标的前 limit 条
+    @EntityGraph(attributePaths = "student")
+    List<Enrollment> findByCourseIdAndIdGreaterThanOrderByIdAsc(String courseId, String id, Limit limit);
+
+    @EntityGraph(attributePaths = "student")
+    @Query("SELECT e FROM Enrollment e WHERE e.student.id = :studentId AND e.id > :id ORDER BY e.id")
+    List<Enrollment> findByStudentIdAfter(@Param("studentId") String studentId, @Param("id") String id, Limit limit);
+
+    @EntityGraph(attributePaths = "student")
+    List<Enrollment> findByStatusAndIdGreaterThanOrderByIdAsc(EnrollmentStatus status, String id, Limit limit);
+
+    // 摘要视图：构造表达式直接生成 DTO，只查需要的列，结果不进入持久化上下文
+    String SUMMARY_SELECT = "SELECT new com.zjgsu.obl.enrollment_service.dto.EnrollmentSummary(" +
+            "e.id, e.courseId, s.id, s.studentId, s.name, e.status, e.enrolledAt) " +
+            "FROM Enrollment e JOIN e.student s ";
+
+    @Query(SUMMARY_SELECT + "WHERE e.courseId = :courseId AND e.id > :id ORDER BY e.id")
+    List<EnrollmentSummary> findSummariesByCourseIdAfter(@Param("courseId") String courseId, @Param("id") String id,
+                                                         Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE s.id = :studentId AND e.id > :id ORDER BY e.id")
+    List<EnrollmentSummary> findSummariesByStudentIdAfter(@Param("studentId") String studentId, @Param("id") String id,
+                                                          Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE e.status = :status AND e.id > :id ORDER BY e.id")
+    List<EnrollmentSummary> findSummariesByStatusAfter(@Param("status") EnrollmentStatus status, @Param("id") String id,
+                                                       Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE e.id > :id ORDER BY e.id")
+    List<EnrollmentSummary> findSummariesAfter(@Param("id") String id, Limit limit);
+
+    @Query(SUMMARY_SELECT)
+    List<EnrollmentSummary> findSummaries(Pageable pageable);
+}
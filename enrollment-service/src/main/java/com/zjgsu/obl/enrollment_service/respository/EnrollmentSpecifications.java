@@ -0,0 +1,51 @@
+package com.zjgsu.obl.enrollment_service.respository;
+
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 选课动态查询条件：只拼接实际传入的条件，可走 (course_id, status) 或 (student_id, status) 复合索引。
+ * 查询实体时连带抓取学生（同一条 SQL），统计数量时不抓取
+ */
+public final class EnrollmentSpecifications {
+    private EnrollmentSpecifications() {
+    }
+
+    /**
+     * @param studentNo 学号（students.student_id），不是学生主键
+     */
+    @SuppressWarnings("unchecked")
+    public static Specification<Enrollment> matching(String courseId, String studentNo, EnrollmentStatus status) {
+        return (root, query, cb) -> {
+            Join<Enrollment, Student> student = null;
+            boolean countQuery = query != null && (query.getResultType() == Long.class || query.getResultType() == long.class);
+            if (!countQuery) {
+                student = (Join<Enrollment, Student>) root.<Enrollment, Student>fetch("student", JoinType.INNER);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+            if (StringUtils.hasText(courseId)) {
+                predicates.add(cb.equal(root.get("courseId"), courseId));
+            }
+            if (StringUtils.hasText(studentNo)) {
+                if (student == null) {
+                    student = root.join("student");
+                }
+                predicates.add(cb.equal(student.get("studentId"), studentNo));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
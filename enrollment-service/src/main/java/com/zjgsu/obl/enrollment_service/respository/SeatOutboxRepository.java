@@ -0,0 +1,44 @@
+package com.zjgsu.obl.enrollment_service.respository;
+
+import com.zjgsu.obl.enrollment_service.model.SeatOutboxEvent;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SeatOutboxRepository extends JpaRepository<SeatOutboxEvent, String> {
+
+    // 按写入顺序取出可以投递的事件：本身已到重试时间，且同一课程没有仍在退避中的事件（保证同一课程按顺序投递），
+    // 退避中的课程不占用批次，其他课程的事件照常取出
+    @Query("SELECT e FROM SeatOutboxEvent e WHERE e.attempts < :maxAttempts AND e.nextAttemptAt <= :now "
+            + "AND NOT EXISTS (SELECT b.id FROM SeatOutboxEvent b WHERE b.courseId = e.courseId "
+            + "AND b.attempts < :maxAttempts AND b.nextAttemptAt > :now) ORDER BY e.id")
+    List<SeatOutboxEvent> findReady(@Param("maxAttempts") int maxAttempts,
+                                    @Param("now") LocalDateTime now, Limit limit);
+
+    @Query("SELECT COUNT(e) FROM SeatOutboxEvent e WHERE e.attempts < :maxAttempts")
+    long countUndelivered(@Param("maxAttempts") int maxAttempts);
+
+    @Query("SELECT COUNT(e) FROM SeatOutboxEvent e WHERE e.attempts >= :maxAttempts")
+    long countAbandoned(@Param("maxAttempts") int maxAttempts);
+
+    // 按课程汇总尚未投递（且未放弃）的人数变化
+    @Query("SELECT e.courseId, SUM(e.delta) FROM SeatOutboxEvent e WHERE e.attempts < :maxAttempts "
+            + "AND e.courseId IN :courseIds GROUP BY e.courseId")
+    List<Object[]> sumUndeliveredByCourse(@Param("maxAttempts") int maxAttempts,
+                                          @Param("courseIds") Collection<String> courseIds);
+
+    @Modifying
+    @Query("UPDATE SeatOutboxEvent e SET e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt, "
+            + "e.lastError = :error WHERE e.id IN :ids")
+    int markFailed(@Param("ids") Collection<String> ids,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("error") String error);
+}
@@ -1,15 +1,18 @@
 package com.zjgsu.obl.enrollment_service.respository;
 
 import com.zjgsu.obl.enrollment_service.model.Student;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 @Repository
-public interface StudentRepository extends JpaRepository<Student, String> {
+public interface StudentRepository extends JpaRepository<Student, String>, JpaSpecificationExecutor<Student> {
 
     Optional<Student> findByStudentId(String studentId);
 
@@ -27,13 +30,15 @@ public interface StudentRepository extends JpaRepository<Student, String> {
     // 添加：按专业和年级筛选学生
     List<Student> findByMajorAndGrade(String major, Integer grade);
 
-    // 添加：按多个条件组合查询
-    @Query("SELECT s FROM Student s WHERE " +
-            "(:studentId IS NULL OR s.studentId = :studentId) AND " +
-            "(:major IS NULL OR s.major = :major) AND " +
-            "(:grade IS NULL OR s.grade = :grade)")
-    List<Student> findByMultipleCriteria(@Param("studentId") String studentId,
-                                         @Param("major") String major,
-                                         @Param("grade") Integer grade);
+    // 游标分页：按主键升序取 id 大于游标的前 limit 条
+    List<Student> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    // 批量导入：一次查出这批学号中已存在的
+    @Query("SELECT s.studentId FROM Student s WHERE s.studentId IN :studentIds")
+    List<String> findExistingStudentIds(@Param("studentIds") Collection<String> studentIds);
+
+    // 批量导入：一次查出这批邮箱中已存在的
+    @Query("SELECT s.email FROM Student s WHERE s.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
 
 }
@@ -0,0 +1,33 @@
+package com.zjgsu.obl.enrollment_service.respository;
+
+import com.zjgsu.obl.enrollment_service.model.Student;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 学生动态查询条件：只拼接实际传入的条件，专业 + 年级查询可走 (major, grade) 复合索引
+ */
+public final class StudentSpecifications {
+    private StudentSpecifications() {
+    }
+
+    public static Specification<Student> matching(String studentId, String major, Integer grade) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (StringUtils.hasText(studentId)) {
+                predicates.add(cb.equal(root.get("studentId"), studentId));
+            }
+            if (StringUtils.hasText(major)) {
+                predicates.add(cb.equal(root.get("major"), major));
+            }
+            if (grade != null) {
+                predicates.add(cb.equal(root.get("grade"), grade));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentRequest;
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentResult;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentTicket;
+import com.zjgsu.obl.enrollment_service.model.TicketStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步选课：请求放入有界队列后立即返回受理凭证，由后台工作线程成批取出、按课程分组，
+ * 每门课程的一组请求交给批量选课处理：只调用一次课程服务占座，选课记录批量写入（写入失败时逐条重试，互不牵连）
+ */
+@Service
+public class AsyncEnrollmentService {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncEnrollmentService.class);
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    // 由 Spring Boot 按 spring.threads.virtual.enabled 配置，开启后工作线程为虚拟线程
+    @Autowired
+    private SimpleAsyncTaskExecutorBuilder taskExecutorBuilder;
+
+    @Value("${enrollment.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${enrollment.async.workers:4}")
+    private int workerCount;
+
+    @Value("${enrollment.async.batch-size:50}")
+    private int batchSize;
+
+    @Value("${enrollment.async.ticket-ttl:10m}")
+    private Duration ticketTtl;
+
+    private BlockingQueue<EnrollmentTicket> queue;
+
+    private final Map<String, EnrollmentTicket> tickets = new ConcurrentHashMap<>();
+
+    private SimpleAsyncTaskExecutor workerExecutor;
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        workerExecutor = taskExecutorBuilder
+                .threadNamePrefix("enrollment-worker-")
+                .taskTerminationTimeout(Duration.ofSeconds(5))
+                .build();
+        for (int i = 0; i < workerCount; i++) {
+            workerExecutor.execute(this::drainQueue);
+        }
+        logger.info("异步选课已启动: workers={}, queueCapacity={}", workerCount, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        // close 会中断仍在等待队列的工作线程
+        workerExecutor.close();
+    }
+
+    /**
+     * 提交选课请求
+     * @return 受理凭证；队列已满时返回 empty
+     */
+    public Optional<EnrollmentTicket> submit(String courseId, String studentId) {
+        EnrollmentTicket ticket = new EnrollmentTicket(courseId, studentId);
+        tickets.put(ticket.getId(), ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.getId());
+            logger.warn("异步选课队列已满: courseId={}, studentId={}", courseId, studentId);
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    public Optional<EnrollmentTicket> findTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 工作线程：一次取出一批请求，按课程分组后依次处理
+     */
+    private void drainQueue() {
+        List<EnrollmentTicket> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                EnrollmentTicket first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<EnrollmentTicket> batch) {
+        Map<String, List<EnrollmentTicket>> byCourse = new LinkedHashMap<>();
+        for (EnrollmentTicket ticket : batch) {
+            byCourse.computeIfAbsent(ticket.getCourseId(), k -> new ArrayList<>()).add(ticket);
+        }
+        byCourse.forEach(this::processCourseBatch);
+    }
+
+    /**
+     * 一门课程的一组请求作为一次批量选课处理，逐项结果与请求顺序一致，按位置写回各个凭证
+     */
+    private void processCourseBatch(String courseId, List<EnrollmentTicket> courseTickets) {
+        logger.debug("处理课程选课批次: courseId={}, size={}", courseId, courseTickets.size());
+        List<String> studentIds = courseTickets.stream().map(EnrollmentTicket::getStudentId).toList();
+        BulkEnrollmentResult result;
+        try {
+            result = bulkEnrollmentService.enroll(new BulkEnrollmentRequest(courseId, studentIds, null));
+        } catch (Exception e) {
+            logger.error("课程选课批次处理失败: courseId={}, size={}, error={}", courseId, courseTickets.size(), e.getMessage());
+            courseTickets.forEach(ticket -> ticket.fail(e.getMessage()));
+            return;
+        }
+
+        for (int i = 0; i < courseTickets.size(); i++) {
+            BulkEnrollmentResult.ItemResult item = result.items().get(i);
+            if (item.success()) {
+                courseTickets.get(i).succeed(item.enrollmentId());
+            } else {
+                courseTickets.get(i).fail(item.message());
+            }
+        }
+    }
+
+    /**
+     * 定期清理已完成且超过保留时间的凭证
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictCompletedTickets() {
+        LocalDateTime expireBefore = LocalDateTime.now().minus(ticketTtl);
+        tickets.values().removeIf(ticket -> ticket.getStatus() != TicketStatus.PENDING
+                && ticket.getCompletedAt().isBefore(expireBefore));
+    }
+}
@@ -0,0 +1,293 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentRequest;
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentResult;
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.exception.ResourceNotFoundException;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量选课：整批学生一次查询校验，每门课程一次调用课程服务占座，选课记录通过 Hibernate JDBC 批量写入。
+ *
+ * 占座和写入分开进行：远程调用期间不持有数据库事务，写入在单独的事务中完成；
+ * 批量写入失败时整批回滚后改为逐条写入，只有写入失败的记录（如与并发选课撞上唯一约束）失败，
+ * 这些记录占的座位按课程写入 outbox，由后台任务归还。
+ */
+@Service
+public class BulkEnrollmentService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkEnrollmentService.class);
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @Autowired
+    private StudentTimetableCache studentTimetableCache;
+
+    @Autowired
+    private SeatOutbox seatOutbox;
+
+    @Value("${enrollment.bulk.max-items:1000}")
+    private int maxItems;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public BulkEnrollmentService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public BulkEnrollmentResult enroll(BulkEnrollmentRequest request) {
+        List<Item> items = toItems(request);
+        logger.info("开始批量选课: items={}", items.size());
+
+        // 1. 请求内去重，同一课程-学生对只处理第一次出现
+        Set<String> seenPairs = new HashSet<>();
+        for (Item item : items) {
+            if (!seenPairs.add(item.courseId + '\n' + item.studentId)) {
+                item.fail("请求中重复的选课");
+            }
+        }
+
+        // 2. 一次查询校验全部学生
+        Set<String> studentIds = new LinkedHashSet<>();
+        pending(items).forEach(item -> studentIds.add(item.studentId));
+        Map<String, Student> students = new HashMap<>();
+        for (Student student : studentRepository.findAllById(studentIds)) {
+            students.put(student.getId(), student);
+        }
+        for (Item item : pending(items)) {
+            item.student = students.get(item.studentId);
+            if (item.student == null) {
+                item.fail("学生不存在: " + item.studentId);
+            }
+        }
+
+        // 3. 一次构建全部学生的课表，用于检查上课时间冲突
+        studentTimetableCache.preload(pending(items).stream().map(item -> item.studentId).toList());
+
+        // 4. 按课程分组：每门课程一次查询已有选课记录，检查时间冲突后一次调用课程服务占座
+        Map<String, List<Item>> byCourse = new LinkedHashMap<>();
+        for (Item item : pending(items)) {
+            byCourse.computeIfAbsent(item.courseId, k -> new ArrayList<>()).add(item);
+        }
+        byCourse.forEach((courseId, courseItems) -> {
+            rejectExisting(courseId, courseItems);
+            reserveTimeSlots(courseId, pending(courseItems));
+            reserveSeats(courseId, pending(courseItems));
+        });
+
+        // 5. 已占到座位的记录在一个事务中批量写入，失败时逐条写入
+        List<Item> toInsert = items.stream().filter(item -> item.enrollment != null && item.error == null).toList();
+        if (!toInsert.isEmpty()) {
+            insert(toInsert);
+        }
+
+        // 6. 最终失败的记录归还已在课表中占用的时间段
+        items.stream().filter(item -> item.error != null && item.slotReserved)
+                .forEach(item -> studentTimetableCache.release(item.studentId, item.courseId));
+
+        BulkEnrollmentResult result = toResult(items);
+        logger.info("批量选课完成: requested={}, succeeded={}, failed={}",
+                result.requested(), result.succeeded(), result.failed());
+        return result;
+    }
+
+    private List<Item> toItems(BulkEnrollmentRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("请求体不能为空");
+        }
+        List<Item> items = new ArrayList<>();
+        if (request.studentIds() != null && !request.studentIds().isEmpty()) {
+            if (request.courseId() == null) {
+                throw new IllegalArgumentException("指定 studentIds 时课程ID不能为空");
+            }
+            request.studentIds().forEach(studentId -> items.add(new Item(request.courseId(), studentId)));
+        }
+        if (request.items() != null) {
+            request.items().forEach(item -> items.add(
+                    new Item(item == null ? null : item.courseId(), item == null ? null : item.studentId())));
+        }
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("选课列表不能为空");
+        }
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("单次最多批量选课 " + maxItems + " 条");
+        }
+        for (Item item : items) {
+            if (item.courseId == null || item.studentId == null) {
+                item.fail("课程ID和学生ID不能为空");
+            }
+        }
+        return items;
+    }
+
+    private void rejectExisting(String courseId, List<Item> courseItems) {
+        Set<String> studentIds = new HashSet<>();
+        courseItems.forEach(item -> studentIds.add(item.studentId));
+        Map<String, EnrollmentStatus> existing = new HashMap<>();
+        for (Object[] row : enrollmentRepository.findStatusesByCourseIdAndStudentIds(courseId, studentIds)) {
+            existing.put((String) row[0], (EnrollmentStatus) row[1]);
+        }
+        for (Item item : courseItems) {
+            EnrollmentStatus status = existing.get(item.studentId);
+            if (status == EnrollmentStatus.ACTIVE) {
+                item.fail("该学生已经选过这门课程");
+            } else if (status != null) {
+                item.fail("该学生已有这门课程的选课记录: " + status);
+            }
+        }
+    }
+
+    /**
+     * 检查一门课程的待处理记录与学生已选课程的上课时间是否冲突，不冲突的在学生课表中占用该时间段，冲突的记录失败
+     */
+    private void reserveTimeSlots(String courseId, List<Item> courseItems) {
+        if (!studentTimetableCache.isEnabled() || courseItems.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> courseInfo;
+        try {
+            courseInfo = catalogClient.getCourseStaticInfo(courseId);
+        } catch (ResourceNotFoundException | BusinessException e) {
+            courseItems.forEach(item -> item.fail(e.getMessage()));
+            return;
+        }
+        for (Item item : courseItems) {
+            try {
+                studentTimetableCache.reserve(item.studentId, courseId, courseInfo);
+                item.slotReserved = true;
+            } catch (BusinessException e) {
+                item.fail(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 为一门课程的全部待处理记录一次占座，座位不足时按请求顺序分配
+     */
+    private void reserveSeats(String courseId, List<Item> courseItems) {
+        if (courseItems.isEmpty()) {
+            return;
+        }
+
+        int granted;
+        try {
+            granted = catalogClient.reserveSeats(courseId, courseItems.size());
+        } catch (ResourceNotFoundException | BusinessException e) {
+            courseItems.forEach(item -> item.fail(e.getMessage()));
+            return;
+        }
+
+        for (int i = 0; i < courseItems.size(); i++) {
+            Item item = courseItems.get(i);
+            if (i < granted) {
+                Enrollment enrollment = new Enrollment(item.student, courseId);
+                enrollment.setStatus(EnrollmentStatus.ACTIVE);
+                item.enrollment = enrollment;
+            } else {
+                item.fail("课程容量已满，无法选课");
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中批量写入；失败时整批回滚，再逐条写入，只有写入失败的记录失败并通过 outbox 归还各自的座位
+     */
+    private void insert(List<Item> toInsert) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                enrollmentRepository.saveAll(toInsert.stream().map(item -> item.enrollment).toList());
+                enrollmentRepository.flush();
+            });
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("批量写入选课记录失败，改为逐条写入: size={}, error={}", toInsert.size(), e.getMessage());
+        }
+
+        Map<String, Integer> failedByCourse = new LinkedHashMap<>();
+        for (Item item : toInsert) {
+            // 回滚的批次已给实体分配过主键，逐条写入使用新的实体
+            Enrollment enrollment = new Enrollment(item.student, item.courseId);
+            enrollment.setStatus(EnrollmentStatus.ACTIVE);
+            try {
+                item.enrollment = transactionTemplate.execute(status -> enrollmentRepository.saveAndFlush(enrollment));
+            } catch (RuntimeException e) {
+                logger.error("写入选课记录失败: courseId={}, studentId={}, error={}",
+                        item.courseId, item.studentId, e.getMessage());
+                item.fail("写入选课记录失败，请重试");
+                failedByCourse.merge(item.courseId, 1, Integer::sum);
+            }
+        }
+        failedByCourse.forEach((courseId, failed) -> seatOutbox.appendNow(courseId, -failed));
+    }
+
+    private static List<Item> pending(List<Item> items) {
+        return items.stream().filter(item -> item.error == null).toList();
+    }
+
+    private static BulkEnrollmentResult toResult(List<Item> items) {
+        List<BulkEnrollmentResult.ItemResult> results = new ArrayList<>(items.size());
+        int succeeded = 0;
+        for (Item item : items) {
+            if (item.error == null) {
+                succeeded++;
+                results.add(new BulkEnrollmentResult.ItemResult(
+                        item.courseId, item.studentId, true, item.enrollment.getId(), "选课成功"));
+            } else {
+                results.add(new BulkEnrollmentResult.ItemResult(
+                        item.courseId, item.studentId, false, null, item.error));
+            }
+        }
+        return new BulkEnrollmentResult(items.size(), succeeded, items.size() - succeeded, results);
+    }
+
+    /**
+     * 一条待处理的选课，error 不为空即处理失败，后续步骤跳过
+     */
+    private static final class Item {
+        final String courseId;
+        final String studentId;
+        Student student;
+        Enrollment enrollment;
+        boolean slotReserved;
+        String error;
+
+        Item(String courseId, String studentId) {
+            this.courseId = courseId;
+            this.studentId = studentId;
+        }
+
+        void fail(String message) {
+            if (error == null) {
+                error = message;
+            }
+        }
+    }
+}
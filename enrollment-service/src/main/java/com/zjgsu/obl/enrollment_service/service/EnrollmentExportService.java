@@ -0,0 +1,191 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.ExportFormat;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 选课记录流式导出：从数据库游标逐行读取并直接写入响应流，内存占用与导出行数无关
+ */
+@Service
+public class EnrollmentExportService {
+    private static final Logger logger = LoggerFactory.getLogger(EnrollmentExportService.class);
+
+    private static final String[] CSV_HEADER = {
+            "id", "courseId", "studentUuid", "studentId", "studentName", "major", "grade", "email", "status", "enrolledAt"
+    };
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // 每写出多少行刷新一次响应并清空持久化上下文
+    @Value("${enrollment.export.flush-rows:500}")
+    private int flushRows;
+
+    // JDBC 每次从数据库取回的行数（MySQL 需开启 useCursorFetch）
+    @Value("${enrollment.export.fetch-size:1000}")
+    private int fetchSize;
+
+    public EnrollmentExportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 导出选课记录，courseId、status 为空时不过滤
+     * @return 导出的行数
+     */
+    public long export(String courseId, EnrollmentStatus status, ExportFormat format, OutputStream out) {
+        Long rows = transactionTemplate.execute(tx -> {
+            try (Stream<Enrollment> stream = streamEnrollments(courseId, status)) {
+                return format == ExportFormat.CSV
+                        ? writeCsv(stream.iterator(), out)
+                        : writeNdjson(stream.iterator(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("导出选课记录完成: courseId={}, status={}, format={}, rows={}", courseId, status, format, rows);
+        return rows;
+    }
+
+    /**
+     * 按主键顺序逐行读取选课记录（连同学生），只拼接传入的过滤条件
+     */
+    private Stream<Enrollment> streamEnrollments(String courseId, EnrollmentStatus status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Enrollment> query = cb.createQuery(Enrollment.class);
+        Root<Enrollment> root = query.from(Enrollment.class);
+        query.where(EnrollmentSpecifications.matching(courseId, null, status).toPredicate(root, query, cb));
+        query.orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private long writeNdjson(Iterator<Enrollment> enrollments, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            while (enrollments.hasNext()) {
+                Enrollment enrollment = enrollments.next();
+                Student student = enrollment.getStudent();
+                generator.writeStartObject();
+                generator.writeStringField("id", enrollment.getId());
+                generator.writeStringField("courseId", enrollment.getCourseId());
+                generator.writeStringField("studentUuid", student.getId());
+                generator.writeStringField("studentId", student.getStudentId());
+                generator.writeStringField("studentName", student.getName());
+                generator.writeStringField("major", student.getMajor());
+                if (student.getGrade() != null) {
+                    generator.writeNumberField("grade", student.getGrade());
+                } else {
+                    generator.writeNullField("grade");
+                }
+                generator.writeStringField("email", student.getEmail());
+                generator.writeStringField("status", enrollment.getStatus().name());
+                generator.writeStringField("enrolledAt", toText(enrollment.getEnrolledAt()));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+
+                if (++rows == 1) {
+                    // 第一行立即发出，客户端不必等到整批写完
+                    generator.flush();
+                } else if (rows % flushRows == 0) {
+                    generator.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<Enrollment> enrollments, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        writer.write('\uFEFF');
+        writeCsvLine(writer, CSV_HEADER);
+        // 表头先发出去，客户端可以立即开始接收
+        writer.flush();
+        while (enrollments.hasNext()) {
+            Enrollment enrollment = enrollments.next();
+            Student student = enrollment.getStudent();
+            writeCsvLine(writer, new String[]{
+                    enrollment.getId(),
+                    enrollment.getCourseId(),
+                    student.getId(),
+                    student.getStudentId(),
+                    student.getName(),
+                    student.getMajor(),
+                    student.getGrade() != null ? student.getGrade().toString() : null,
+                    student.getEmail(),
+                    enrollment.getStatus().name(),
+                    toText(enrollment.getEnrolledAt())
+            });
+
+            if (++rows % flushRows == 0) {
+                writer.flush();
+                entityManager.clear();
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private void writeCsvLine(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private String toText(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -1,26 +1,39 @@
 package com.zjgsu.obl.enrollment_service.service;
 
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.common.CursorPage;
+import com.zjgsu.obl.enrollment_service.dto.CourseActiveCount;
+import com.zjgsu.obl.enrollment_service.dto.EnrollmentSummary;
 import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.exception.CircuitOpenException;
 import com.zjgsu.obl.enrollment_service.exception.ResourceNotFoundException;
 import com.zjgsu.obl.enrollment_service.model.Enrollment;
 import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
 import com.zjgsu.obl.enrollment_service.model.Student;
 import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentSpecifications;
 import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
-import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -34,23 +47,99 @@ public class EnrollmentService {
     private StudentRepository studentRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private CatalogClient catalogClient;
 
-    @Value("${catalog-service.url:http://localhost:8081}")
-    private String catalogServiceUrl;
+    @Autowired
+    private StudentTimetableCache studentTimetableCache;
+
+    @Autowired
+    private SeatOutbox seatOutbox;
+
+    @Autowired
+    private SeatDeltaCoalescer seatDeltaCoalescer;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public EnrollmentService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     /**
      * 获取所有选课记录
      */
+    @Transactional(readOnly = true)
     public List<Enrollment> findAll() {
         List<Enrollment> enrollments = enrollmentRepository.findAll();
-        enrollments.forEach(this::enrichWithCourseInfo);
+        enrichWithCourseInfo(enrollments);
         return enrollments;
     }
 
+    /**
+     * 游标分页查询选课记录，按主键升序，只为当前页补充课程信息
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Enrollment> findPage(String cursor, int size) {
+        List<Enrollment> fetched = enrollmentRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decode(cursor), Limit.of(size + 1));
+        return enrichedPage(fetched, size);
+    }
+
+    /**
+     * 偏移量分页查询选课记录（兼容旧客户端，翻页越深越慢）
+     */
+    @Transactional(readOnly = true)
+    public List<Enrollment> findPage(int page, int size) {
+        List<Enrollment> enrollments = enrollmentRepository.findAll(PageRequest.of(page, size, Sort.by("id"))).getContent();
+        enrichWithCourseInfo(enrollments);
+        return enrollments;
+    }
+
+    /**
+     * 游标分页查询选课摘要，不调用课程服务
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<EnrollmentSummary> findSummaryPage(String cursor, int size) {
+        List<EnrollmentSummary> fetched = enrollmentRepository.findSummariesAfter(
+                CursorPage.decode(cursor), Limit.of(size + 1));
+        return CursorPage.of(fetched, size, EnrollmentSummary::id);
+    }
+
+    /**
+     * 偏移量分页查询选课摘要
+     */
+    @Transactional(readOnly = true)
+    public List<EnrollmentSummary> findSummaryPage(int page, int size) {
+        return enrollmentRepository.findSummaries(PageRequest.of(page, size, Sort.by("id")));
+    }
+
+    /**
+     * 按课程、学生、状态游标分页查询选课摘要，不调用课程服务
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<EnrollmentSummary> findSummaryPageByCourseId(String courseId, String cursor, int size) {
+        List<EnrollmentSummary> fetched = enrollmentRepository.findSummariesByCourseIdAfter(
+                courseId, CursorPage.decode(cursor), Limit.of(size + 1));
+        return CursorPage.of(fetched, size, EnrollmentSummary::id);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<EnrollmentSummary> findSummaryPageByStudentId(String studentId, String cursor, int size) {
+        List<EnrollmentSummary> fetched = enrollmentRepository.findSummariesByStudentIdAfter(
+                studentId, CursorPage.decode(cursor), Limit.of(size + 1));
+        return CursorPage.of(fetched, size, EnrollmentSummary::id);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<EnrollmentSummary> findSummaryPageByStatus(EnrollmentStatus status, String cursor, int size) {
+        List<EnrollmentSummary> fetched = enrollmentRepository.findSummariesByStatusAfter(
+                status, CursorPage.decode(cursor), Limit.of(size + 1));
+        return CursorPage.of(fetched, size, EnrollmentSummary::id);
+    }
+
     /**
      * 根据ID查询选课记录
      */
+    @Transactional(readOnly = true)
     public Optional<Enrollment> findById(String id) {
         Optional<Enrollment> enrollment = enrollmentRepository.findById(id);
         enrollment.ifPresent(this::enrichWithCourseInfo);
@@ -107,61 +196,75 @@ public class EnrollmentService {
 
     /**
      * 学生选课 - 完整修复版本
+     *
+     * 方法本身不开启事务：校验和写入各在一个短事务中完成，调用课程服务（查询课程、占座）期间不持有数据库连接
+     *
+     * 重复选课检查与写入不在同一事务中，两个相同的并发请求可能都通过检查并各占一个座位；
+     * 真正阻止重复的是 enrollments(student_id, course_id) 唯一约束，后写入的请求失败，它占的座位通过 outbox 归还
      */
-    @Transactional(rollbackOn = Exception.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Enrollment enrollStudent(String courseId, String studentId) {
         logger.info("开始选课: courseId={}, studentId={}", courseId, studentId);
 
+        boolean slotReserved = false;
         try {
-            // 1. 验证学生是否存在
-            Student student = studentRepository.findById(studentId)
-                    .orElseThrow(() -> new ResourceNotFoundException("学生不存在: " + studentId));
-
-            // 2. 调用课程目录服务验证课程
-            Map<String, Object> courseInfo = getCourseInfoFromCatalogService(courseId);
-            Integer capacity = (Integer) courseInfo.get("capacity");
-            Integer enrolledCount = (Integer) courseInfo.get("enrolledCount");
-            if (enrolledCount == null) {
-                enrolledCount = 0;
-                logger.warn("课程 {} 的 enrolledCount 为 null，已设置为 0", courseId);
+            // 1. 验证学生是否存在，检查重复选课（快速失败，并发重复由唯一约束兜底）
+            Student student = transactionTemplate.execute(status -> {
+                Student found = studentRepository.findById(studentId)
+                        .orElseThrow(() -> new ResourceNotFoundException("学生不存在: " + studentId));
+                if (enrollmentRepository.existsByCourseIdAndStudentIdAndStatus(courseId, studentId)) {
+                    throw new BusinessException("该学生已经选过这门课程");
+                }
+                return found;
+            });
+
+            // 2. 检查上课时间是否与已选课程冲突，不冲突则在学生课表中占用该时间段
+            if (studentTimetableCache.isEnabled()) {
+                studentTimetableCache.reserve(studentId, courseId, catalogClient.getCourseStaticInfo(courseId));
+                slotReserved = true;
             }
 
-            // 3. 检查课程容量
-            if (enrolledCount >= capacity) {
+            // 3. 调用课程目录服务原子占座（同时校验课程是否存在、容量是否已满），开启合并时与同一窗口内的其他占座一起提交
+            if (!seatDeltaCoalescer.reserve(courseId)) {
                 throw new BusinessException("课程容量已满，无法选课");
             }
 
-            // 4. 检查重复选课
-            if (enrollmentRepository.existsByCourseIdAndStudentIdAndStatus(courseId, studentId)) {
-                throw new BusinessException("该学生已经选过这门课程");
-            }
-
-            // 5. 创建选课记录
+            // 4. 创建选课记录，失败时通过 outbox 归还已占的座位
             Enrollment enrollment = new Enrollment();
             enrollment.setCourseId(courseId);
             enrollment.setStudent(student);
             enrollment.setStatus(EnrollmentStatus.ACTIVE);
 
-            Enrollment savedEnrollment = enrollmentRepository.save(enrollment);
-
-            // 6. 更新课程的已选人数 - 关键修复！
-            updateCourseEnrolledCount(courseId, enrolledCount + 1);
+            Enrollment savedEnrollment;
+            try {
+                savedEnrollment = transactionTemplate.execute(status -> enrollmentRepository.saveAndFlush(enrollment));
+            } catch (RuntimeException e) {
+                seatOutbox.appendNow(courseId, -1);
+                throw e;
+            }
 
-            // 7. 丰富课程信息用于响应
+            // 5. 丰富课程信息用于响应
             enrichWithCourseInfo(savedEnrollment);
 
             logger.info("选课成功: enrollmentId={}", savedEnrollment.getId());
             return savedEnrollment;
 
         } catch (Exception e) {
+            if (slotReserved) {
+                studentTimetableCache.release(studentId, courseId);
+            }
             logger.error("选课失败: courseId={}, studentId={}, error={}",
                     courseId, studentId, e.getMessage());
+            if (e instanceof CircuitOpenException circuitOpen) {
+                // 课程服务熔断中，保留 503 和重试时间
+                throw circuitOpen;
+            }
             throw new BusinessException("选课失败: " + e.getMessage());
         }
     }
 
     /**
-     * 学生退课
+     * 学生退课：释放座位的人数变化与退课在同一事务中写入 outbox，由后台任务投递给课程服务
      */
     @Transactional
     public boolean dropEnrollment(String enrollmentId) {
@@ -173,44 +276,24 @@ public class EnrollmentService {
         }
 
         Enrollment enrollment = enrollmentOpt.get();
+        if (enrollment.getStatus() != EnrollmentStatus.ACTIVE) {
+            throw new BusinessException("该选课记录已退课或已完成: " + enrollmentId);
+        }
 
-        // 1. 获取当前课程信息
-        Map<String, Object> courseInfo = getCourseInfoFromCatalogService(enrollment.getCourseId());
-        Integer currentEnrolled = (Integer) courseInfo.get("enrolledCount");
-
-        // 2. 更新选课状态为退课
+        // 1. 更新选课状态为退课
         enrollment.setStatus(EnrollmentStatus.DROPPED);
         enrollmentRepository.save(enrollment);
 
-        // 3. 更新课程的已选人数
-        updateCourseEnrolledCount(enrollment.getCourseId(), currentEnrolled - 1);
+        // 2. 记录释放座位，随退课一起提交
+        seatOutbox.append(enrollment.getCourseId(), -1);
+
+        // 3. 退课提交后归还学生课表中的时间段
+        studentTimetableCache.releaseAfterCommit(enrollment.getStudent().getId(), enrollment.getCourseId());
 
         logger.info("退课成功: enrollmentId={}", enrollmentId);
         return true;
     }
 
-    /**
-     * 从catalog-service获取课程信息
-     */
-    private Map<String, Object> getCourseInfoFromCatalogService(String courseId) {
-        String url = catalogServiceUrl + "/api/courses/" + courseId;
-        logger.debug("调用课程服务: {}", url);
-
-        try {
-            Map<String, Object> response = restTemplate.getForObject(url, Map.class);
-            if (response != null && response.containsKey("data")) {
-                return (Map<String, Object>) response.get("data");
-            } else {
-                throw new ResourceNotFoundException("课程不存在: " + courseId);
-            }
-        } catch (HttpClientErrorException.NotFound e) {
-            throw new ResourceNotFoundException("课程不存在: " + courseId);
-        } catch (Exception e) {
-            logger.error("调用课程服务失败: {}", e.getMessage());
-            throw new BusinessException("课程服务暂时不可用，请稍后重试");
-        }
-    }
-
     /**
      * 更新课程的已选人数
      */
@@ -232,95 +315,130 @@ public class EnrollmentService {
 //    }
 
     /**
-     * 更新课程的已选人数 - 使用 PUT 方法
+     * 为选课记录丰富课程信息
      */
-    private void updateCourseEnrolledCount(String courseId, int newCount) {
-        String url = catalogServiceUrl + "/api/courses/" + courseId;
-        Map<String, Object> updateData = Map.of("enrolledCount", newCount);
-
-        logger.info("准备更新课程人数: courseId={}, newCount={}", courseId, newCount);
-        logger.info("调用URL: {}", url);
-        logger.info("请求数据: {}", updateData);
-
+    private void enrichWithCourseInfo(Enrollment enrollment) {
         try {
-            // 使用 PATCH 方法
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> requestEntity = new HttpEntity<>(updateData, headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, HttpMethod.PUT, requestEntity, String.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                logger.info("更新课程人数成功: courseId={}, newCount={}", courseId, newCount);
-            } else {
-                logger.error("更新课程人数失败: 状态码={}, 响应={}",
-                        response.getStatusCode(), response.getBody());
-            }
+            Map<String, Object> courseInfo = catalogClient.getCourseInfoOrStale(enrollment.getCourseId());
+            enrollment.setCourseInfo(courseInfo);
         } catch (Exception e) {
-            logger.error("更新课程人数失败: courseId={}, error={}", courseId, e.getMessage());
-            logger.error("异常详情:", e);
-            // 重要：如果更新失败，抛出异常让事务回滚
-            throw new BusinessException("更新课程人数失败: " + e.getMessage());
+            logger.warn("获取课程信息失败: courseId={}", enrollment.getCourseId());
         }
     }
 
     /**
-     * 为选课记录丰富课程信息
+     * 批量为选课记录丰富课程信息：按去重后的课程ID分批调用课程服务，
+     * 调用次数只与不同课程的数量有关，与记录条数无关
      */
-    private void enrichWithCourseInfo(Enrollment enrollment) {
-        try {
-            Map<String, Object> courseInfo = getCourseInfoFromCatalogService(enrollment.getCourseId());
-            enrollment.setCourseInfo(courseInfo);
-        } catch (Exception e) {
-            logger.warn("获取课程信息失败: courseId={}", enrollment.getCourseId());
+    private void enrichWithCourseInfo(List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return;
+        }
+
+        Set<String> courseIds = enrollments.stream()
+                .map(Enrollment::getCourseId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, Map<String, Object>> courseInfos = catalogClient.getCourseInfos(courseIds);
+
+        for (Enrollment enrollment : enrollments) {
+            Map<String, Object> courseInfo = courseInfos.get(enrollment.getCourseId());
+            if (courseInfo != null) {
+                enrollment.setCourseInfo(courseInfo);
+            }
         }
     }
 
     /**
-     * 根据课程ID查询选课记录
+     * 根据课程ID游标分页查询选课记录
      */
-    public List<Enrollment> findByCourseId(String courseId) {
-        List<Enrollment> enrollments = enrollmentRepository.findByCourseId(courseId);
-        enrollments.forEach(this::enrichWithCourseInfo);
-        return enrollments;
+    @Transactional(readOnly = true)
+    public CursorPage<Enrollment> findPageByCourseId(String courseId, String cursor, int size) {
+        List<Enrollment> fetched = enrollmentRepository.findByCourseIdAndIdGreaterThanOrderByIdAsc(
+                courseId, CursorPage.decode(cursor), Limit.of(size + 1));
+        return enrichedPage(fetched, size);
     }
 
     /**
-     * 根据学生ID查询选课记录
+     * 根据学生ID游标分页查询选课记录
      */
-    public List<Enrollment> findByStudentId(String studentId) {
-        List<Enrollment> enrollments = enrollmentRepository.findByStudentId(studentId);
-        enrollments.forEach(this::enrichWithCourseInfo);
-        return enrollments;
+    @Transactional(readOnly = true)
+    public CursorPage<Enrollment> findPageByStudentId(String studentId, String cursor, int size) {
+        List<Enrollment> fetched = enrollmentRepository.findByStudentIdAfter(
+                studentId, CursorPage.decode(cursor), Limit.of(size + 1));
+        return enrichedPage(fetched, size);
     }
 
     /**
-     * 根据状态查询选课记录
+     * 根据状态游标分页查询选课记录
      */
-    public List<Enrollment> findByStatus(EnrollmentStatus status) {
-        List<Enrollment> enrollments = enrollmentRepository.findByStatus(status);
-        enrollments.forEach(this::enrichWithCourseInfo);
-        return enrollments;
+    @Transactional(readOnly = true)
+    public CursorPage<Enrollment> findPageByStatus(EnrollmentStatus status, String cursor, int size) {
+        List<Enrollment> fetched = enrollmentRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                status, CursorPage.decode(cursor), Limit.of(size + 1));
+        return enrichedPage(fetched, size);
+    }
+
+    private CursorPage<Enrollment> enrichedPage(List<Enrollment> fetched, int size) {
+        CursorPage<Enrollment> page = CursorPage.of(fetched, size, Enrollment::getId);
+        enrichWithCourseInfo(page.getItems());
+        return page;
     }
 
     /**
      * 检查学生是否有选课记录
      */
+    @Transactional(readOnly = true)
     public boolean hasEnrollments(String studentId) {
         return enrollmentRepository.countByStudentId(studentId) > 0;
     }
 
     /**
-     * 统计课程活跃选课人数
+     * 统计课程活跃选课人数。课程服务恢复座位账本时以此为准，不走只读事务，始终读主库的最新数据
      */
     public long countActiveEnrollmentsByCourse(String courseId) {
         return enrollmentRepository.countActiveEnrollmentsByCourse(courseId);
     }
 
+    /**
+     * 一次分组查询统计多门课程的活跃选课数，每门请求的课程都返回一条（没有选课的为 0）。
+     * 与单门统计一样读主库，供课程服务校准已选人数
+     */
+    public List<CourseActiveCount> countActiveGroupedByCourse(Collection<String> courseIds) {
+        Set<String> distinct = new LinkedHashSet<>(courseIds);
+        if (distinct.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Long> active = new HashMap<>();
+        for (Object[] row : enrollmentRepository.countActiveGroupedByCourse(distinct)) {
+            active.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        Map<String, Long> pending = seatOutbox.pendingDeltas(distinct);
+        return distinct.stream()
+                .map(courseId -> new CourseActiveCount(courseId,
+                        active.getOrDefault(courseId, 0L), pending.getOrDefault(courseId, 0L)))
+                .toList();
+    }
+
+    /**
+     * 按课程ID游标分页统计所有有活跃选课的课程
+     */
+    public CursorPage<CourseActiveCount> countActiveGroupedByCourse(String cursor, int size) {
+        List<Object[]> rows = enrollmentRepository.countActiveGroupedByCourseAfter(
+                CursorPage.decode(cursor), Limit.of(size + 1));
+        List<String> courseIds = rows.stream().map(row -> (String) row[0]).toList();
+        Map<String, Long> pending = seatOutbox.pendingDeltas(courseIds);
+        List<CourseActiveCount> fetched = rows.stream()
+                .map(row -> new CourseActiveCount((String) row[0], ((Number) row[1]).longValue(),
+                        pending.getOrDefault((String) row[0], 0L)))
+                .toList();
+        return CursorPage.of(fetched, size, CourseActiveCount::courseId);
+    }
+
     /**
      * 检查学生是否已选某课程
      */
+    @Transactional(readOnly = true)
     public boolean hasActiveEnrollment(String studentId, String courseId) {
         return enrollmentRepository.existsByCourseIdAndStudentIdAndStatus(courseId, studentId);
     }
@@ -328,9 +446,11 @@ public class EnrollmentService {
     /**
      * 多条件组合查询
      */
+    @Transactional(readOnly = true)
     public List<Enrollment> findByMultipleCriteria(String courseId, String studentId, EnrollmentStatus status) {
-        List<Enrollment> enrollments = enrollmentRepository.findByMultipleCriteria(courseId, studentId, status);
-        enrollments.forEach(this::enrichWithCourseInfo);
+        List<Enrollment> enrollments = enrollmentRepository.findAll(
+                EnrollmentSpecifications.matching(courseId, studentId, status));
+        enrichWithCourseInfo(enrollments);
         return enrollments;
     }
 }
\ No newline at end of file
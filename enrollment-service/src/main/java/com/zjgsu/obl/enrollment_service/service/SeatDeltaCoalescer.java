@@ -0,0 +1,206 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 占座合并：把一小段时间窗口内（或攒满一批）的并发选课占座按课程合并，
+ * 通过一次 POST /api/courses/seats/deltas 提交给课程服务，热门课程每个窗口只写一次已选人数。
+ *
+ * 窗口内第一个请求负责提交：等待窗口结束或批次攒满后取走整批，其余请求等待结果。
+ * 课程服务按剩余座位返回每门课程实际占到的人数 g，同一课程按到达顺序前 g 个请求成功、其余为课程已满。
+ * 等待超时的请求放弃结果，之后占到的座位通过 outbox 归还
+ */
+@Component
+public class SeatDeltaCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(SeatDeltaCoalescer.class);
+
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @Autowired
+    private SeatOutbox seatOutbox;
+
+    @Value("${enrollment.seat-coalescing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${enrollment.seat-coalescing.window:5ms}")
+    private Duration window;
+
+    @Value("${enrollment.seat-coalescing.max-batch:200}")
+    private int maxBatch;
+
+    @Value("${enrollment.seat-coalescing.timeout:5s}")
+    private Duration timeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchSealed = lock.newCondition();
+
+    // 正在收集请求的批次，为 null 时下一个请求开启新批次
+    private Batch current;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong courseWrites = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong unclaimed = new AtomicLong();
+
+    /**
+     * 为课程占一个座位，未开启合并时直接调用课程服务的单个占座接口
+     * @return true 占座成功；false 课程已满
+     */
+    public boolean reserve(String courseId) {
+        if (!enabled) {
+            return catalogClient.reserveSeat(courseId);
+        }
+        requests.incrementAndGet();
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        Batch batch;
+        boolean leader;
+        lock.lock();
+        try {
+            leader = current == null;
+            if (leader) {
+                current = new Batch();
+            }
+            batch = current;
+            batch.waiters.computeIfAbsent(courseId, k -> new ArrayList<>()).add(future);
+            if (++batch.size >= maxBatch) {
+                current = null;
+                batchSealed.signalAll();
+            }
+            if (leader) {
+                awaitWindow(batch);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (leader) {
+            flush(batch);
+        }
+        return await(courseId, future);
+    }
+
+    /**
+     * 持有锁时调用：等待窗口结束或批次被攒满的请求封口，然后取走批次
+     */
+    private void awaitWindow(Batch batch) {
+        long nanos = window.toNanos();
+        try {
+            while (current == batch && nanos > 0) {
+                nanos = batchSealed.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            // 批次里其他请求在等待提交结果，被中断也要照常提交
+            Thread.currentThread().interrupt();
+        }
+        if (current == batch) {
+            current = null;
+        }
+    }
+
+    private void flush(Batch batch) {
+        Map<String, Integer> deltas = new LinkedHashMap<>();
+        batch.waiters.forEach((courseId, waiters) -> deltas.put(courseId, waiters.size()));
+        flushes.incrementAndGet();
+        courseWrites.addAndGet(deltas.size());
+
+        Map<String, Integer> applied;
+        try {
+            applied = catalogClient.applySeatDeltas(deltas);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            logger.warn("合并占座提交失败: courses={}, requests={}, error={}", deltas.size(), batch.size, e.getMessage());
+            batch.waiters.values().forEach(waiters -> waiters.forEach(waiter -> waiter.completeExceptionally(e)));
+            return;
+        }
+
+        batch.waiters.forEach((courseId, waiters) -> {
+            Integer granted = applied.get(courseId);
+            if (granted == null) {
+                ResourceNotFoundException notFound = new ResourceNotFoundException("课程不存在: " + courseId);
+                waiters.forEach(waiter -> waiter.completeExceptionally(notFound));
+                return;
+            }
+            int lost = 0;
+            for (int i = 0; i < waiters.size(); i++) {
+                boolean success = i < granted;
+                if (!waiters.get(i).complete(success) && success) {
+                    lost++;
+                }
+            }
+            if (lost > 0) {
+                unclaimed.addAndGet(lost);
+                logger.warn("占座结果返回前请求已超时，归还座位: courseId={}, count={}", courseId, lost);
+                seatOutbox.appendNow(courseId, -lost);
+            }
+        });
+    }
+
+    private boolean await(String courseId, CompletableFuture<Boolean> future) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 取消失败说明结果刚好到达，照常使用
+            if (!future.cancel(false)) {
+                return future.join();
+            }
+            logger.warn("等待合并占座结果超时: courseId={}, timeout={}", courseId, timeout);
+            throw new BusinessException("课程服务暂时不可用，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (!future.cancel(false)) {
+                return future.join();
+            }
+            throw new BusinessException("选课请求被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("课程服务暂时不可用，请稍后重试");
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long requestCount = requests.get();
+        long writeCount = courseWrites.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("window", window.toString());
+        stats.put("maxBatch", maxBatch);
+        stats.put("requests", requestCount);
+        stats.put("flushes", flushes.get());
+        stats.put("courseWrites", writeCount);
+        stats.put("writesPerRequest", requestCount == 0 ? 0.0 : (double) writeCount / requestCount);
+        stats.put("failures", failures.get());
+        stats.put("unclaimed", unclaimed.get());
+        return stats;
+    }
+
+    private static class Batch {
+        // 按课程分组的等待者，保持到达顺序
+        private final Map<String, List<CompletableFuture<Boolean>>> waiters = new LinkedHashMap<>();
+        private int size;
+    }
+}
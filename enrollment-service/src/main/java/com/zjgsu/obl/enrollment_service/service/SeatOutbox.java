@@ -0,0 +1,228 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.exception.CircuitOpenException;
+import com.zjgsu.obl.enrollment_service.model.SeatOutboxEvent;
+import com.zjgsu.obl.enrollment_service.respository.SeatOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已选人数变化的事务性 outbox：退课等操作把人数变化与选课记录写在同一个本地事务里，
+ * 事务中不再调用课程服务；后台任务把一批事件（带事件ID）通过一次 POST /api/courses/seats/events 投递给课程服务，
+ * 课程服务按课程合并后在一个事务中完成，并记录已应用的事件ID。
+ *
+ * 同一课程的事件按写入顺序投递，前面的事件投递失败（退避中）时后面的也不投递，其他课程不受影响；
+ * 批量调用失败时逐门课程重试，仍然失败的课程按指数退避重试，超过最大次数的事件保留在表中不再投递，留待人数校准修正。
+ * 投递是至少一次的：课程服务已应用但没收到响应、或删除事件前宕机时会重新投递，课程服务按事件ID跳过，人数不会重复修改。
+ * 多实例部署时只应有一个实例开启投递
+ */
+@Component
+public class SeatOutbox {
+    private static final Logger logger = LoggerFactory.getLogger(SeatOutbox.class);
+
+    @Autowired
+    private SeatOutboxRepository seatOutboxRepository;
+
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @Value("${enrollment.outbox.relay-enabled:true}")
+    private boolean relayEnabled;
+
+    @Value("${enrollment.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${enrollment.outbox.max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${enrollment.outbox.initial-backoff:1s}")
+    private Duration initialBackoff;
+
+    @Value("${enrollment.outbox.max-backoff:5m}")
+    private Duration maxBackoff;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+
+    public SeatOutbox(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 在调用方的事务中记录一条人数变化，随事务一起提交或回滚
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String courseId, int delta) {
+        seatOutboxRepository.save(new SeatOutboxEvent(courseId, delta));
+        appended.incrementAndGet();
+    }
+
+    /**
+     * 在单独的事务中记录一条人数变化（选课记录写入失败后归还座位）；
+     * 连 outbox 也写不进去时直接调用课程服务归还
+     */
+    public void appendNow(String courseId, int delta) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> append(courseId, delta));
+        } catch (RuntimeException e) {
+            logger.error("写入 outbox 失败，直接调用课程服务: courseId={}, delta={}, error={}",
+                    courseId, delta, e.getMessage());
+            calls.incrementAndGet();
+            catalogClient.applySeatDeltas(Map.of(courseId, delta));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${enrollment.outbox.poll-interval-ms:500}",
+            fixedDelayString = "${enrollment.outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (!relayEnabled) {
+            return;
+        }
+        // 一批取满且有进展时继续取下一批，积压的事件在一轮内尽快投递完
+        boolean more = true;
+        while (more) {
+            more = relayBatch();
+        }
+    }
+
+    /**
+     * 投递一批事件：整批通过一次批量调用提交，由课程服务按课程合并；
+     * 批量调用失败时逐门课程重试，只有仍然失败的课程进入退避
+     * @return 是否还可能有未处理的事件
+     */
+    private boolean relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<SeatOutboxEvent> events = seatOutboxRepository.findReady(maxAttempts, now, Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return false;
+        }
+
+        Map<String, List<SeatOutboxEvent>> byCourse = new LinkedHashMap<>();
+        for (SeatOutboxEvent event : events) {
+            byCourse.computeIfAbsent(event.getCourseId(), k -> new ArrayList<>()).add(event);
+        }
+        Map<String, List<SeatOutboxEvent>> failed = new LinkedHashMap<>();
+        String error = null;
+        try {
+            deliver(events);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            logger.warn("人数变化批量投递失败，逐门课程重试: courses={}, error={}", byCourse.size(), e.getMessage());
+            error = errorMessage(e);
+            boolean circuitOpen = e instanceof CircuitOpenException;
+            for (Map.Entry<String, List<SeatOutboxEvent>> entry : byCourse.entrySet()) {
+                String courseId = entry.getKey();
+                if (circuitOpen) {
+                    // 课程服务熔断中，剩下的课程不再逐个调用
+                    failed.put(courseId, entry.getValue());
+                    continue;
+                }
+                try {
+                    deliver(entry.getValue());
+                } catch (RuntimeException courseFailure) {
+                    circuitOpen = courseFailure instanceof CircuitOpenException;
+                    error = errorMessage(courseFailure);
+                    failed.put(courseId, entry.getValue());
+                }
+            }
+        }
+        if (!failed.isEmpty()) {
+            markFailed(failed, now, error);
+        }
+
+        List<String> ids = byCourse.entrySet().stream()
+                .filter(entry -> !failed.containsKey(entry.getKey()))
+                .flatMap(entry -> entry.getValue().stream())
+                .map(SeatOutboxEvent::getId)
+                .toList();
+        if (!ids.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> seatOutboxRepository.deleteAllByIdInBatch(ids));
+            delivered.addAndGet(ids.size());
+        }
+        return events.size() == batchSize && failed.size() < byCourse.size();
+    }
+
+    private String errorMessage(RuntimeException e) {
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    private void markFailed(Map<String, List<SeatOutboxEvent>> failed, LocalDateTime now, String error) {
+        transactionTemplate.executeWithoutResult(status -> failed.forEach((courseId, courseEvents) -> {
+            List<String> ids = courseEvents.stream().map(SeatOutboxEvent::getId).toList();
+            int attempts = courseEvents.get(0).getAttempts() + 1;
+            seatOutboxRepository.markFailed(ids, now.plus(backoff(attempts)), error);
+            if (attempts >= maxAttempts) {
+                abandoned.incrementAndGet();
+                logger.error("人数变化投递失败次数达到上限，不再重试: courseId={}, events={}, error={}",
+                        courseId, ids.size(), error);
+            }
+        }));
+        logger.warn("人数变化投递失败，稍后重试: courses={}, error={}", failed.size(), error);
+    }
+
+    private void deliver(List<SeatOutboxEvent> events) {
+        calls.incrementAndGet();
+        Map<String, Integer> applied = catalogClient.applySeatEvents(events);
+        events.stream().map(SeatOutboxEvent::getCourseId).distinct()
+                .filter(courseId -> !applied.containsKey(courseId))
+                // 课程已删除，不再需要调整人数
+                .forEach(courseId -> logger.warn("投递人数变化时课程已不存在: courseId={}", courseId));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    /**
+     * 各课程尚未投递给课程服务的人数变化之和，没有待投递事件的课程不出现在结果中
+     */
+    public Map<String, Long> pendingDeltas(Collection<String> courseIds) {
+        Map<String, Long> pending = new HashMap<>();
+        if (!courseIds.isEmpty()) {
+            for (Object[] row : seatOutboxRepository.sumUndeliveredByCourse(maxAttempts, courseIds)) {
+                pending.put((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        return pending;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("relayEnabled", relayEnabled);
+        stats.put("pending", seatOutboxRepository.countUndelivered(maxAttempts));
+        stats.put("abandonedEvents", seatOutboxRepository.countAbandoned(maxAttempts));
+        stats.put("appended", appended.get());
+        stats.put("delivered", delivered.get());
+        stats.put("calls", calls.get());
+        stats.put("failures", failures.get());
+        stats.put("abandoned", abandoned.get());
+        return stats;
+    }
+}
@@ -0,0 +1,283 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.common.CsvReader;
+import com.zjgsu.obl.enrollment_service.dto.StudentImportResult;
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * CSV 批量导入学生：边读边解析，每 chunk-size 行为一块，
+ * 每块用两条 IN 查询检查学号/邮箱是否已存在，再批量写入并单独提交。
+ * 同时只在内存中保留一块数据，持久化上下文每块清空一次，内存占用与文件大小无关
+ *
+ * 表头必须包含 studentId、name、email，可选 major、grade（也接受 学号/姓名/邮箱/专业/年级）
+ */
+@Service
+public class StudentImportService {
+    private static final Logger logger = LoggerFactory.getLogger(StudentImportService.class);
+
+    private static final Map<String, String> HEADER_ALIASES = Map.ofEntries(
+            Map.entry("studentid", "studentId"), Map.entry("student_id", "studentId"), Map.entry("学号", "studentId"),
+            Map.entry("name", "name"), Map.entry("姓名", "name"),
+            Map.entry("major", "major"), Map.entry("专业", "major"),
+            Map.entry("grade", "grade"), Map.entry("年级", "grade"),
+            Map.entry("email", "email"), Map.entry("邮箱", "email"));
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // 每块的行数，也是每次提交的行数
+    @Value("${enrollment.import.chunk-size:1000}")
+    private int chunkSize;
+
+    // 结果中最多返回的错误明细条数
+    @Value("${enrollment.import.max-errors:100}")
+    private int maxErrors;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public StudentImportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public StudentImportResult importCsv(InputStream input) {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        Summary summary = new Summary();
+        try {
+            Map<String, Integer> columns = resolveColumns(csv.next());
+
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            while (true) {
+                List<String> fields;
+                try {
+                    fields = csv.next();
+                } catch (IllegalArgumentException e) {
+                    // 引号未闭合会一直读到文件末尾，之前的块已提交，记录错误后结束
+                    summary.totalRows++;
+                    summary.invalid++;
+                    summary.error(csv.getLineNumber(), null, e.getMessage());
+                    break;
+                }
+                if (fields == null) {
+                    break;
+                }
+                if (fields.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+
+                summary.totalRows++;
+                Row row = parse(csv.getLineNumber(), fields, columns, summary);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= chunkSize) {
+                    importChunk(chunk, summary);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, summary);
+            }
+        } catch (IOException e) {
+            logger.error("读取导入文件失败: 已处理 {} 行, error={}", summary.totalRows, e.getMessage());
+            throw new BusinessException("读取导入文件失败（已导入 " + summary.created + " 名学生）: " + e.getMessage());
+        }
+
+        logger.info("学生导入完成: total={}, created={}, duplicates={}, invalid={}, failed={}",
+                summary.totalRows, summary.created, summary.duplicates, summary.invalid, summary.failed);
+        return summary.toResult();
+    }
+
+    private Map<String, Integer> resolveColumns(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV 文件为空");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String column = HEADER_ALIASES.get(header.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column != null) {
+                columns.putIfAbsent(column, i);
+            }
+        }
+        for (String required : List.of("studentId", "name", "email")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV 表头缺少必填列: " + required);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 校验一行数据
+     * @return 校验不通过时返回 null，并计入 invalid
+     */
+    private Row parse(long line, List<String> fields, Map<String, Integer> columns, Summary summary) {
+        String studentId = field(fields, columns, "studentId");
+        String name = field(fields, columns, "name");
+        String email = field(fields, columns, "email");
+        String major = field(fields, columns, "major");
+        String grade = field(fields, columns, "grade");
+
+        String reason = null;
+        if (studentId == null) {
+            reason = "学号不能为空";
+        } else if (studentId.length() > 50) {
+            reason = "学号长度不能超过50";
+        } else if (name == null) {
+            reason = "姓名不能为空";
+        } else if (!StudentService.isValidEmail(email)) {
+            reason = "邮箱格式不正确";
+        }
+
+        Integer gradeValue = null;
+        if (reason == null && grade != null) {
+            try {
+                gradeValue = Integer.valueOf(grade);
+            } catch (NumberFormatException e) {
+                reason = "年级必须是整数";
+            }
+        }
+
+        if (reason != null) {
+            summary.invalid++;
+            summary.error(line, studentId, reason);
+            return null;
+        }
+
+        Student student = new Student();
+        student.setStudentId(studentId);
+        student.setName(name);
+        student.setMajor(major);
+        student.setGrade(gradeValue);
+        student.setEmail(email);
+        return new Row(line, student);
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 一块数据：块内去重，两条 IN 查询排除已存在的学号/邮箱，剩余的批量写入并提交。
+     * 前面的块已经提交，文件内跨块的重复会被这里的查询识别出来
+     */
+    private void importChunk(List<Row> chunk, Summary summary) {
+        Set<String> studentIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (Row row : chunk) {
+            studentIds.add(row.student.getStudentId());
+            emails.add(row.student.getEmail());
+        }
+        // MySQL 默认排序规则不区分大小写，比较时统一转小写
+        Set<String> existingStudentIds = lowerCase(studentRepository.findExistingStudentIds(studentIds));
+        Set<String> existingEmails = lowerCase(studentRepository.findExistingEmails(emails));
+
+        Set<String> seenStudentIds = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<Row> toInsert = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            String studentId = row.student.getStudentId().toLowerCase(Locale.ROOT);
+            String email = row.student.getEmail().toLowerCase(Locale.ROOT);
+            String reason = null;
+            if (existingStudentIds.contains(studentId)) {
+                reason = "学号已存在";
+            } else if (existingEmails.contains(email)) {
+                reason = "邮箱已存在";
+            } else if (!seenStudentIds.add(studentId)) {
+                reason = "文件中学号重复";
+            } else if (!seenEmails.add(email)) {
+                reason = "文件中邮箱重复";
+            }
+
+            if (reason == null) {
+                toInsert.add(row);
+            } else {
+                summary.duplicates++;
+                summary.error(row.line, row.student.getStudentId(), reason);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                studentRepository.saveAll(toInsert.stream().map(row -> row.student).toList());
+                studentRepository.flush();
+                entityManager.clear();
+            });
+            summary.created += toInsert.size();
+        } catch (DataIntegrityViolationException e) {
+            // 检查之后有并发写入了相同的学号或邮箱，本块整体回滚
+            logger.warn("学生导入写入失败，本块回滚: size={}, error={}", toInsert.size(), e.getMessage());
+            entityManager.clear();
+            summary.failed += toInsert.size();
+            for (Row row : toInsert) {
+                summary.error(row.line, row.student.getStudentId(), "写入失败：学号或邮箱与其他写入冲突，请重新导入");
+            }
+        }
+    }
+
+    private static Set<String> lowerCase(List<String> values) {
+        Set<String> result = new HashSet<>(values.size() * 2);
+        values.forEach(value -> result.add(value.toLowerCase(Locale.ROOT)));
+        return result;
+    }
+
+    private record Row(long line, Student student) {
+    }
+
+    private final class Summary {
+        long totalRows;
+        long created;
+        long duplicates;
+        long invalid;
+        long failed;
+        final List<StudentImportResult.RowError> errors = new ArrayList<>();
+        boolean errorsTruncated;
+
+        void error(long line, String studentId, String reason) {
+            if (errors.size() < maxErrors) {
+                errors.add(new StudentImportResult.RowError(line, studentId, reason));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        StudentImportResult toResult() {
+            return new StudentImportResult(totalRows, created, duplicates, invalid, failed, errors, errorsTruncated);
+        }
+    }
+}
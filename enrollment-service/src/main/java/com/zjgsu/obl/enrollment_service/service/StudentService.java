@@ -1,10 +1,15 @@
 package com.zjgsu.obl.enrollment_service.service;
 
+import com.zjgsu.obl.enrollment_service.common.CursorPage;
 import com.zjgsu.obl.enrollment_service.model.Student;
 import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
-import jakarta.transaction.Transactional;
+import com.zjgsu.obl.enrollment_service.respository.StudentSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,10 +23,30 @@ public class StudentService {
 
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
 
+    @Transactional(readOnly = true)
     public List<Student> findAll() {
         return studentRepository.findAll();
     }
 
+    /**
+     * 游标分页查询学生，按主键升序
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Student> findPage(String cursor, int size) {
+        List<Student> fetched = studentRepository.findByIdGreaterThanOrderByIdAsc(
+                CursorPage.decode(cursor), Limit.of(size + 1));
+        return CursorPage.of(fetched, size, Student::getId);
+    }
+
+    /**
+     * 偏移量分页查询学生（兼容旧客户端，翻页越深越慢）
+     */
+    @Transactional(readOnly = true)
+    public List<Student> findPage(int page, int size) {
+        return studentRepository.findAll(PageRequest.of(page, size, Sort.by("id"))).getContent();
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Student> findById(String id) {
         return studentRepository.findById(id);
     }
@@ -76,10 +101,11 @@ public class StudentService {
         return false;
     }
 
-    private boolean isValidEmail(String email){
+    static boolean isValidEmail(String email){
         return email != null && EMAIL_PATTERN.matcher(email).matches();
     }
 
+    @Transactional(readOnly = true)
     public List<Student> findByMajor(String major) {
         System.out.println("Service: 按专业查询 - " + major);
         List<Student> students = studentRepository.findByMajor(major);
@@ -87,28 +113,19 @@ public class StudentService {
         return students;
     }
 
+    @Transactional(readOnly = true)
     public List<Student> findByGrade(Integer grade) {
         return studentRepository.findByGrade(grade);
     }
 
+    @Transactional(readOnly = true)
     public List<Student> findByMajorAndGrade(String major, Integer grade) {
         return studentRepository.findByMajorAndGrade(major, grade);
     }
 
+    @Transactional(readOnly = true)
     public List<Student> findByMultipleCriteria(String studentId, String major, Integer grade) {
-        System.out.println("多条件查询 - studentId: " + studentId + ", major: " + major + ", grade: " + grade);
-
-        List<Student> students = studentRepository.findByMultipleCriteria(studentId, major, grade);
-        System.out.println("查询结果数量: " + students.size());
-
-        // 打印所有学生信息用于调试
-        List<Student> allStudents = studentRepository.findAll();
-        System.out.println("数据库中学生总数: " + allStudents.size());
-        for (Student s : allStudents) {
-            System.out.println("学生: " + s.getStudentId() + ", " + s.getName() + ", " + s.getMajor() + ", " + s.getGrade());
-        }
-
-        return students;
+        return studentRepository.findAll(StudentSpecifications.matching(studentId, major, grade));
     }
 
 }
@@ -0,0 +1,430 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 学生课表缓存：选课时检查新课程的上课时间是否与学生已选的活跃课程冲突
+ *
+ * 每个学生的课表按星期几分组，每天一棵以开始时间为键的 TreeMap，保存互不重叠的时间段，
+ * 检查冲突只需查看新时间段前后相邻的两个时间段，O(log n)。
+ * 课表第一次使用时构建：一次查询学生的活跃选课课程ID，再通过课程信息缓存批量获取时间安排（未命中的课程合并为一次批量调用），
+ * 之后按 LRU + TTL 缓存；选课、退课时直接增删对应的时间段。
+ *
+ * 检查和占用时间段在同一把锁内完成，同一学生并发选两门冲突的课程时只有一门能通过（限单实例内）
+ */
+@Component
+public class StudentTimetableCache {
+    private static final Logger logger = LoggerFactory.getLogger(StudentTimetableCache.class);
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @Value("${enrollment.timetable.enabled:true}")
+    private boolean enabled;
+
+    @Value("${enrollment.timetable.cache.max-size:10000}")
+    private int maxSize;
+
+    // 与课程信息缓存中时间安排（静态字段）的有效期一致，课程调整时间后最多这么久生效
+    @Value("${enrollment.timetable.cache.ttl:10m}")
+    private Duration ttl;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<String, Timetable> timetables = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Timetable> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong clashes = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 检查新课程与学生已选课程的时间是否冲突，不冲突则在课表中占用该时间段。
+     * 选课最终失败时需要调用 {@link #release(String, String)} 归还
+     *
+     * @param courseInfo 新课程的信息（含 schedule），没有时间安排的课程不参与检查
+     * @throws BusinessException 时间冲突
+     */
+    public void reserve(String studentId, String courseId, Map<String, Object> courseInfo) {
+        Slot slot = Slot.of(courseId, courseInfo);
+        if (!enabled || slot == null) {
+            return;
+        }
+
+        Timetable timetable = timetable(studentId);
+        Slot clash = timetable.tryAdd(slot);
+        if (clash != null) {
+            clashes.incrementAndGet();
+            throw new BusinessException(String.format("上课时间冲突：与已选课程 %s（%s %s-%s）冲突",
+                    clash.title, clash.day, format(clash.start), format(clash.end)));
+        }
+    }
+
+    /**
+     * 批量选课前一次构建多名学生的课表：一次查询所有学生的活跃选课，课程信息合并为一次批量获取；已缓存的学生跳过
+     */
+    public void preload(Collection<String> studentIds) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, List<String>> courseIdsByStudent = new LinkedHashMap<>();
+        for (String studentId : studentIds) {
+            if (!courseIdsByStudent.containsKey(studentId) && cached(studentId) == null) {
+                courseIdsByStudent.put(studentId, new ArrayList<>());
+            }
+        }
+        if (courseIdsByStudent.isEmpty()) {
+            return;
+        }
+
+        Set<String> courseIds = new LinkedHashSet<>();
+        for (Object[] row : enrollmentRepository.findActiveCourseIdsByStudentIds(courseIdsByStudent.keySet())) {
+            courseIdsByStudent.get((String) row[0]).add((String) row[1]);
+            courseIds.add((String) row[1]);
+        }
+        Map<String, Map<String, Object>> courseInfos = courseIds.isEmpty()
+                ? Map.of() : catalogClient.getCourseStaticInfos(courseIds);
+
+        courseIdsByStudent.forEach((studentId, studentCourseIds) -> {
+            Timetable built = build(studentId, studentCourseIds, courseInfos);
+            if (built.complete) {
+                lock.lock();
+                try {
+                    timetables.putIfAbsent(studentId, built);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * 退课或选课失败后归还课程占用的时间段
+     */
+    public void release(String studentId, String courseId) {
+        Timetable timetable = cached(studentId);
+        if (timetable != null) {
+            timetable.remove(courseId);
+        }
+    }
+
+    /**
+     * 退课时调用：在当前事务提交后才归还时间段，事务回滚时选课记录仍是 ACTIVE，时间段保留
+     */
+    public void releaseAfterCommit(String studentId, String courseId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(studentId, courseId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(studentId, courseId);
+            }
+        });
+    }
+
+    /**
+     * 学生的选课记录在别处被修改（例如批量选课）后调用，下次使用时重新构建
+     */
+    public void invalidate(String studentId) {
+        lock.lock();
+        try {
+            timetables.remove(studentId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("size", timetables.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("enabled", enabled);
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.get());
+        stats.put("builds", builds.get());
+        stats.put("evictions", evictions.get());
+        stats.put("clashes", clashes.get());
+        return stats;
+    }
+
+    private Timetable cached(String studentId) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            Timetable timetable = timetables.get(studentId);
+            if (timetable != null && now - timetable.expiresAt >= 0) {
+                timetables.remove(studentId);
+                return null;
+            }
+            return timetable;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Timetable timetable(String studentId) {
+        Timetable timetable = cached(studentId);
+        if (timetable != null) {
+            hits.incrementAndGet();
+            return timetable;
+        }
+
+        // 在锁外构建（查询数据库和课程服务），并发构建时以先放入缓存的为准
+        Timetable built = build(studentId);
+        if (!built.complete) {
+            return built;
+        }
+        lock.lock();
+        try {
+            Timetable existing = timetables.get(studentId);
+            if (existing != null) {
+                return existing;
+            }
+            timetables.put(studentId, built);
+            return built;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Timetable build(String studentId) {
+        List<String> courseIds = enrollmentRepository.findActiveCourseIdsByStudentId(studentId);
+        Map<String, Map<String, Object>> courseInfos = courseIds.isEmpty()
+                ? Map.of() : catalogClient.getCourseStaticInfos(courseIds);
+        return build(studentId, courseIds, courseInfos);
+    }
+
+    private Timetable build(String studentId, List<String> courseIds, Map<String, Map<String, Object>> courseInfos) {
+        builds.incrementAndGet();
+        Timetable timetable = new Timetable(System.nanoTime() + ttl.toNanos());
+        for (String courseId : courseIds) {
+            Map<String, Object> courseInfo = courseInfos.get(courseId);
+            if (courseInfo == null) {
+                // 课程信息暂时获取不到，这门课不参与本次检查，课表也不缓存，下次重新构建
+                timetable.complete = false;
+                continue;
+            }
+            Slot slot = Slot.of(courseId, courseInfo);
+            if (slot != null) {
+                timetable.addExisting(slot);
+            }
+        }
+        if (!timetable.complete) {
+            logger.warn("构建学生课表时部分课程信息获取失败: studentId={}, courses={}, fetched={}",
+                    studentId, courseIds.size(), courseInfos.size());
+        }
+        return timetable;
+    }
+
+    private static String format(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    /**
+     * 一门课程的上课时间段 [start, end)，单位为当天的分钟数
+     */
+    private static final class Slot {
+        final String courseId;
+        final String title;
+        final DayOfWeek day;
+        final int start;
+        final int end;
+
+        Slot(String courseId, String title, DayOfWeek day, int start, int end) {
+            this.courseId = courseId;
+            this.title = title;
+            this.day = day;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * 解析课程信息中的 schedule（dayOfWeek: "MONDAY", startTime/endTime: "08:00"），
+         * 没有时间安排或格式不正确时返回 null
+         */
+        static Slot of(String courseId, Map<String, Object> courseInfo) {
+            if (courseInfo == null || !(courseInfo.get("schedule") instanceof Map<?, ?> schedule)) {
+                return null;
+            }
+            if (!(schedule.get("dayOfWeek") instanceof String day)
+                    || !(schedule.get("startTime") instanceof String startTime)
+                    || !(schedule.get("endTime") instanceof String endTime)) {
+                return null;
+            }
+            try {
+                int start = LocalTime.parse(startTime.trim()).toSecondOfDay() / 60;
+                int end = LocalTime.parse(endTime.trim()).toSecondOfDay() / 60;
+                if (end <= start) {
+                    return null;
+                }
+                Object title = courseInfo.get("title");
+                return new Slot(courseId, title == null ? courseId : title.toString(),
+                        DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)), start, end);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        boolean overlaps(Slot other) {
+            return start < other.end && other.start < end;
+        }
+    }
+
+    /**
+     * 连续的一段被占用时间 [start, end)。正常情况下每段只有一门课程；
+     * 引入冲突检查之前已存在的重叠选课会合并成一段，保证同一天的各段互不重叠
+     */
+    private static final class Block {
+        final int start;
+        final int end;
+        final List<Slot> slots;
+
+        Block(int start, int end, List<Slot> slots) {
+            this.start = start;
+            this.end = end;
+            this.slots = slots;
+        }
+    }
+
+    private static final class Timetable {
+        final long expiresAt;
+        boolean complete = true;
+
+        private final Map<DayOfWeek, TreeMap<Integer, Block>> days = new EnumMap<>(DayOfWeek.class);
+        private final Map<String, Slot> slotsByCourse = new HashMap<>();
+
+        Timetable(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * 没有冲突时占用时间段并返回 null，否则返回冲突的课程
+         */
+        synchronized Slot tryAdd(Slot slot) {
+            if (slotsByCourse.containsKey(slot.courseId)) {
+                return null;
+            }
+            TreeMap<Integer, Block> blocks = days.computeIfAbsent(slot.day, d -> new TreeMap<>());
+            Map.Entry<Integer, Block> before = blocks.floorEntry(slot.start);
+            if (before != null && before.getValue().end > slot.start) {
+                return firstOverlap(before.getValue(), slot);
+            }
+            Map.Entry<Integer, Block> after = blocks.higherEntry(slot.start);
+            if (after != null && after.getKey() < slot.end) {
+                return firstOverlap(after.getValue(), slot);
+            }
+
+            List<Slot> slots = new ArrayList<>(1);
+            slots.add(slot);
+            blocks.put(slot.start, new Block(slot.start, slot.end, slots));
+            slotsByCourse.put(slot.courseId, slot);
+            return null;
+        }
+
+        /**
+         * 构建时加入已有的选课，与已有时间段重叠时合并
+         */
+        synchronized void addExisting(Slot slot) {
+            slotsByCourse.put(slot.courseId, slot);
+            insertMerging(days.computeIfAbsent(slot.day, d -> new TreeMap<>()), slot);
+        }
+
+        synchronized void remove(String courseId) {
+            Slot removed = slotsByCourse.remove(courseId);
+            if (removed == null) {
+                return;
+            }
+            TreeMap<Integer, Block> blocks = days.get(removed.day);
+            Map.Entry<Integer, Block> entry = blocks.floorEntry(removed.start);
+            Block block = entry.getValue();
+            blocks.remove(entry.getKey());
+            // 合并段拆开后剩余课程可能不再重叠，逐个重新插入
+            for (Slot slot : block.slots) {
+                if (slot != removed) {
+                    insertMerging(blocks, slot);
+                }
+            }
+        }
+
+        private static void insertMerging(TreeMap<Integer, Block> blocks, Slot slot) {
+            int start = slot.start;
+            int end = slot.end;
+            List<Slot> slots = new ArrayList<>();
+            slots.add(slot);
+
+            Map.Entry<Integer, Block> before = blocks.floorEntry(start);
+            if (before != null && before.getValue().end > start) {
+                start = before.getKey();
+            }
+            // 从 start 开始、开始时间早于 end 的段都与新时间段重叠
+            Map.Entry<Integer, Block> overlapping = blocks.ceilingEntry(start);
+            while (overlapping != null && overlapping.getKey() < end) {
+                Block block = overlapping.getValue();
+                end = Math.max(end, block.end);
+                slots.addAll(block.slots);
+                blocks.remove(overlapping.getKey());
+                overlapping = blocks.ceilingEntry(start);
+            }
+            blocks.put(start, new Block(start, end, slots));
+        }
+
+        private static Slot firstOverlap(Block block, Slot slot) {
+            for (Slot existing : block.slots) {
+                if (existing.overlaps(slot)) {
+                    return existing;
+                }
+            }
+            // 合并段由相互重叠的时间段组成、没有空隙，不会走到这里
+            return block.slots.get(0);
+        }
+    }
+}
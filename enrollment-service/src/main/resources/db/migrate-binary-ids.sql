@@ -0,0 +1,27 @@
+-- 学生、选课记录主键及 enrollments.student_id 外键 VARCHAR(36) -> BINARY(16)
+-- 停止 enrollment-service 并备份后执行一次。UUID_TO_BIN 不交换时间字段，BIN_TO_UUID(id) 与原来的字符串相同，
+-- 接口中的 ID 不变；enrollments.course_id 引用课程服务，保持 VARCHAR(36) 不做修改
+USE enrollment_db;
+
+-- 外键两端需要一起改类型，转换期间暂时关闭外键检查
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- 先改成 VARBINARY 保留原字节（主键、唯一键和索引都随之保留），再原地转换为 16 字节
+ALTER TABLE students MODIFY id VARBINARY(36) NOT NULL;
+ALTER TABLE enrollments MODIFY id VARBINARY(36) NOT NULL, MODIFY student_id VARBINARY(36) NOT NULL;
+
+UPDATE students SET id = UUID_TO_BIN(id) WHERE LENGTH(id) = 36;
+UPDATE enrollments SET id = UUID_TO_BIN(id) WHERE LENGTH(id) = 36;
+UPDATE enrollments SET student_id = UUID_TO_BIN(student_id) WHERE LENGTH(student_id) = 36;
+
+ALTER TABLE students MODIFY id BINARY(16) NOT NULL;
+ALTER TABLE enrollments MODIFY id BINARY(16) NOT NULL, MODIFY student_id BINARY(16) NOT NULL;
+
+SET FOREIGN_KEY_CHECKS = 1;
+
+-- 检查：都应为 0
+SELECT COUNT(*) AS unconverted_students FROM students WHERE LENGTH(id) <> 16;
+SELECT COUNT(*) AS unconverted_enrollments FROM enrollments WHERE LENGTH(id) <> 16 OR LENGTH(student_id) <> 16;
+SELECT COUNT(*) AS orphan_enrollments
+FROM enrollments e LEFT JOIN students s ON s.id = e.student_id
+WHERE s.id IS NULL;
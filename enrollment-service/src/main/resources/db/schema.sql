@@ -12,29 +12,44 @@ USE enrollment_db;
 
 -- 先创建 students 表（被引用的表先创建）
 CREATE TABLE IF NOT EXISTS students (
-    id VARCHAR(36) PRIMARY KEY,
+    id BINARY(16) PRIMARY KEY,  -- UUIDv7，应用中为 36 位字符串；旧库升级见 migrate-binary-ids.sql
     student_id VARCHAR(50) UNIQUE NOT NULL,
     name VARCHAR(100) NOT NULL,
     major VARCHAR(100),
     grade INT,
     email VARCHAR(100) UNIQUE NOT NULL,
-    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_students_major_grade (major, grade)
 );
 
 -- 然后创建 enrollments 表（引用 students 表）
 CREATE TABLE IF NOT EXISTS enrollments (
-    id VARCHAR(36) PRIMARY KEY,
-    student_id VARCHAR(36) NOT NULL,
-    course_id VARCHAR(36) NOT NULL,
+    id BINARY(16) PRIMARY KEY,
+    student_id BINARY(16) NOT NULL,
+    course_id VARCHAR(36) NOT NULL,  -- 课程服务的主键，保持字符串形式
     -- 使用 VARCHAR 替代 ENUM 提高兼容性
     status VARCHAR(20) DEFAULT 'ACTIVE' CHECK (status IN ('ACTIVE', 'DROPPED', 'COMPLETED')),
     enrolled_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     UNIQUE KEY unique_course_student (course_id, student_id),
+    INDEX idx_enrollments_course_status (course_id, status),
+    INDEX idx_enrollments_student_status (student_id, status),
     FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE
 );
 
+-- 待投递给课程服务的已选人数变化（事务性 outbox），投递成功后删除
+CREATE TABLE IF NOT EXISTS seat_outbox (
+    id BINARY(16) PRIMARY KEY,
+    course_id VARCHAR(36) NOT NULL,
+    delta INT NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_seat_outbox_course (course_id)
+);
+
 -- 初始化学生数据
 INSERT INTO students (id, student_id, name, major, grade, email, created_at) VALUES
-(UUID(), 'S2024001', '张三', '计算机科学与技术', 2024, 'zhangsan@example.com', CURRENT_TIMESTAMP),
-(UUID(), 'S2024002', '李四', '软件工程', 2024, 'lisi@example.com', CURRENT_TIMESTAMP),
-(UUID(), 'S2024003', '王五', '数学', 2024, 'wangwu@example.com', CURRENT_TIMESTAMP);
\ No newline at end of file
+(UUID_TO_BIN(UUID()), 'S2024001', '张三', '计算机科学与技术', 2024, 'zhangsan@example.com', CURRENT_TIMESTAMP),
+(UUID_TO_BIN(UUID()), 'S2024002', '李四', '软件工程', 2024, 'lisi@example.com', CURRENT_TIMESTAMP),
+(UUID_TO_BIN(UUID()), 'S2024003', '王五', '数学', 2024, 'wangwu@example.com', CURRENT_TIMESTAMP);
\ No newline at end of file
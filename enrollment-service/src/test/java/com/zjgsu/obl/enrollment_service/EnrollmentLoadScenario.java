@@ -0,0 +1,176 @@
+package com.zjgsu.obl.enrollment_service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * 选课高峰压测场景：对比平台线程与虚拟线程模式下两个服务的表现。
+ * 需要先启动 catalog-service 和 enrollment-service（及数据库），分别以两种模式各跑一次：
+ *
+ *   VIRTUAL_THREADS_ENABLED=false  # 平台线程（Tomcat 默认最多 200 个请求线程）
+ *   VIRTUAL_THREADS_ENABLED=true   # 虚拟线程（需 Java 21+）
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.zjgsu.obl.enrollment_service.EnrollmentLoadScenario \
+ *       -Dexec.args="http://localhost:8081 http://localhost:8082 2000"
+ *
+ * 场景：创建一门容量足够的课程和 N 名学生，然后 N 个客户端同时选课，再同时查询课程和学生的选课列表。
+ * 参数：[课程服务地址] [选课服务地址] [并发数, 默认 2000]
+ */
+public class EnrollmentLoadScenario {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String catalogUrl = args.length > 0 ? args[0] : "http://localhost:8081";
+        String enrollmentUrl = args.length > 1 ? args[1] : "http://localhost:8082";
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        String courseId = createCourse(catalogUrl, runId, concurrency);
+        List<String> studentIds = createStudents(enrollmentUrl, runId, concurrency);
+        System.out.printf("准备完成: courseId=%s, students=%d%n", courseId, studentIds.size());
+
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            runPhase("enroll", clients, concurrency, i -> HttpRequest.newBuilder()
+                    .uri(URI.create(enrollmentUrl + "/api/enrollments"))
+                    .header("Content-Type", "application/json")
+                    .POST(json(Map.of("courseId", courseId, "studentId", studentIds.get(i))))
+                    .build());
+
+            runPhase("list", clients, concurrency, i -> HttpRequest.newBuilder()
+                    .uri(URI.create(i % 2 == 0
+                            ? enrollmentUrl + "/api/enrollments/student/" + studentIds.get(i)
+                            : enrollmentUrl + "/api/enrollments/course/" + courseId))
+                    .GET()
+                    .build());
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * 所有客户端线程就绪后同时发出请求，统计吞吐量、延迟分位和状态码分布
+     */
+    private static void runPhase(String name, ExecutorService clients, int concurrency,
+                                 IntFunction<HttpRequest> requestFactory) throws Exception {
+        CountDownLatch ready = new CountDownLatch(concurrency);
+        CountDownLatch go = new CountDownLatch(1);
+        Map<Integer, AtomicInteger> statusCounts = new ConcurrentHashMap<>();
+        List<Future<Long>> futures = new ArrayList<>(concurrency);
+
+        for (int i = 0; i < concurrency; i++) {
+            HttpRequest request = requestFactory.apply(i);
+            futures.add(clients.submit(() -> {
+                ready.countDown();
+                go.await();
+                long begin = System.nanoTime();
+                int status;
+                try {
+                    status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (Exception e) {
+                    status = -1; // 连接失败或超时
+                }
+                statusCounts.computeIfAbsent(status, k -> new AtomicInteger()).incrementAndGet();
+                return System.nanoTime() - begin;
+            }));
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        long[] latencies = new long[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            latencies[i] = futures.get(i).get();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        System.out.printf("%-8s requests=%d  elapsed=%7.2f s  throughput=%7.0f req/s  "
+                        + "p50=%8.2f ms  p99=%8.2f ms  max=%8.2f ms  status=%s%n",
+                name, concurrency, elapsed / 1e9, concurrency / (elapsed / 1e9),
+                latencies[concurrency / 2] / 1e6,
+                latencies[(int) (concurrency * 0.99)] / 1e6,
+                latencies[concurrency - 1] / 1e6,
+                new TreeMap<>(statusCounts));
+    }
+
+    private static String createCourse(String catalogUrl, String runId, int capacity) throws Exception {
+        Map<String, Object> course = Map.of(
+                "courseCode", "LOAD-" + runId,
+                "title", "压测课程 " + runId,
+                "instructor", Map.of("id", "T-LOAD", "name", "压测教师", "email", "load@example.edu.cn"),
+                "schedule", Map.of("dayOfWeek", "MONDAY", "startTime", "08:00", "endTime", "10:00",
+                        "expectedAttendance", capacity),
+                "capacity", capacity,
+                "enrolledCount", 0);
+        return post(catalogUrl + "/api/courses", course).path("data").path("id").asText();
+    }
+
+    private static List<String> createStudents(String enrollmentUrl, String runId, int count) throws Exception {
+        ExecutorService setup = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<String>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String studentNo = runId + "-" + i;
+                futures.add(setup.submit(() -> post(enrollmentUrl + "/api/students", Map.of(
+                        "studentId", studentNo,
+                        "name", "压测学生" + studentNo,
+                        "major", "计算机科学与技术",
+                        "grade", 2024,
+                        "email", studentNo + "@load.example.edu.cn")).path("data").path("id").asText()));
+            }
+            List<String> ids = new ArrayList<>(count);
+            for (Future<String> future : futures) {
+                ids.add(future.get());
+            }
+            return ids;
+        } finally {
+            setup.shutdown();
+        }
+    }
+
+    private static JsonNode post(String url, Object body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(json(body))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("POST " + url + " 失败: " + response.statusCode() + " " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.zjgsu.obl.enrollment_service;
+
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用学生：学号为前缀加序号，姓名为“学生”加序号，邮箱为小写前缀加序号
+ */
+public final class TestStudents {
+    private TestStudents() {
+    }
+
+    /**
+     * 创建 count 名未保存的学生，需要设置专业、年级等字段的测试在保存前自行修改
+     */
+    public static List<Student> create(String prefix, int count) {
+        List<Student> students = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student();
+            student.setStudentId(prefix + i);
+            student.setName("学生" + i);
+            student.setEmail(prefix.toLowerCase() + i + "@example.edu.cn");
+            students.add(student);
+        }
+        return students;
+    }
+
+    /**
+     * 保存 count 名学生，返回按序号排列的学生ID
+     */
+    public static List<String> saveAll(StudentRepository studentRepository, String prefix, int count) {
+        return studentRepository.saveAll(create(prefix, count)).stream().map(Student::getId).toList();
+    }
+}
@@ -0,0 +1,104 @@
+package com.zjgsu.obl.enrollment_service.client;
+
+import com.zjgsu.obl.enrollment_service.exception.CircuitOpenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 课程服务熔断：失败率超过阈值后打开，打开期间不再发出调用；
+ * 等待 open-duration 后半开试探，试探成功则关闭，失败则重新打开
+ */
+class CatalogCircuitBreakerTest {
+    private CatalogCircuitBreaker circuitBreaker;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        circuitBreaker = new CatalogCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "enabled", true);
+        ReflectionTestUtils.setField(circuitBreaker, "windowSize", 4);
+        ReflectionTestUtils.setField(circuitBreaker, "minimumCalls", 4);
+        ReflectionTestUtils.setField(circuitBreaker, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(circuitBreaker, "slowCallDuration", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(circuitBreaker, "slowCallRateThreshold", 80);
+        ReflectionTestUtils.setField(circuitBreaker, "openDuration", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(circuitBreaker, "halfOpenProbes", 1);
+        circuitBreaker.init();
+    }
+
+    @Test
+    void opensOnFailuresAndRejectsWithoutCalling() {
+        // 窗口内 4 次调用失败 3 次，超过 50% 打开熔断
+        circuitBreaker.call(this::succeed);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> circuitBreaker.call(this::fail)).isInstanceOf(ResourceAccessException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CatalogCircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> circuitBreaker.call(this::succeed))
+                .isInstanceOfSatisfying(CircuitOpenException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(2));
+        assertThat(calls).hasValue(4);
+        assertThat(circuitBreaker.stats()).containsEntry("rejected", 1L);
+    }
+
+    @Test
+    void clientErrorsDoNotCountAsFailures() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> circuitBreaker.call(() -> {
+                throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+            })).isInstanceOf(HttpClientErrorException.class);
+        }
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CatalogCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenProbeClosesOnSuccessAndReopensOnFailure() {
+        ReflectionTestUtils.setField(circuitBreaker, "openDuration", Duration.ZERO);
+        open();
+
+        // 试探失败重新打开，下一次试探成功则关闭
+        assertThatThrownBy(() -> circuitBreaker.call(this::fail)).isInstanceOf(ResourceAccessException.class);
+        assertThat(circuitBreaker.getState()).isEqualTo(CatalogCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.call(this::succeed)).isEqualTo("ok");
+        assertThat(circuitBreaker.getState()).isEqualTo(CatalogCircuitBreaker.State.CLOSED);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> transitions = (Map<String, Long>) circuitBreaker.stats().get("transitions");
+        assertThat(transitions)
+                .containsEntry("CLOSED->OPEN", 1L)
+                .containsEntry("OPEN->HALF_OPEN", 2L)
+                .containsEntry("HALF_OPEN->OPEN", 1L)
+                .containsEntry("HALF_OPEN->CLOSED", 1L);
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> circuitBreaker.call(this::fail)).isInstanceOf(ResourceAccessException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CatalogCircuitBreaker.State.OPEN);
+    }
+
+    private String succeed() {
+        calls.incrementAndGet();
+        return "ok";
+    }
+
+    private String fail() {
+        calls.incrementAndGet();
+        throw new ResourceAccessException("Connection refused");
+    }
+}
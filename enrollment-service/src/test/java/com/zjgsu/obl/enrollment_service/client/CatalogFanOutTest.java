@@ -0,0 +1,66 @@
+package com.zjgsu.obl.enrollment_service.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量获取课程信息：所有请求合计的并发已满时，等待名额的时间也计入 deadline，等不到的课程不带课程信息直接返回
+ */
+@SpringBootTest(properties = {
+        "enrollment.outbox.relay-enabled=false",
+        "catalog-service.fan-out.max-concurrency=1",
+        "catalog-service.fan-out.deadline=300ms"
+})
+@ActiveProfiles("test")
+class CatalogFanOutTest {
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @MockitoBean
+    private RestTemplate restTemplate;
+
+    @Test
+    void deadlineCoversWaitingForConcurrencyPermit() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            List<String> courseIds = invocation.getArgument(1);
+            return Map.of("data", courseIds.stream().map(id -> Map.of("id", id, "title", "课程" + id)).toList());
+        });
+
+        // 占住唯一的并发名额
+        CompletableFuture<Map<String, Map<String, Object>>> holder =
+                CompletableFuture.supplyAsync(() -> catalogClient.getCourseInfos(List.of("slow")));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long start = System.nanoTime();
+        Map<String, Map<String, Object>> courseInfos = catalogClient.getCourseInfos(List.of("waiting"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(courseInfos).isEmpty();
+        assertThat(elapsedMillis).isLessThan(1000);
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(Map.class));
+    }
+}
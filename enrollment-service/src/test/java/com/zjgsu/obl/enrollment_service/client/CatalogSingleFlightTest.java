@@ -0,0 +1,125 @@
+package com.zjgsu.obl.enrollment_service.client;
+
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 单门课程查询合并：同一课程的并发查询只发出一次调用，其余请求共用结果或异常
+ */
+@SpringBootTest(properties = "enrollment.outbox.relay-enabled=false")
+@ActiveProfiles("test")
+class CatalogSingleFlightTest {
+    private static final int CONCURRENT_LOOKUPS = 10;
+
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @MockitoBean
+    private RestTemplate restTemplate;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(CONCURRENT_LOOKUPS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return courseResponse("hot");
+        });
+        long coalesced = (long) catalogClient.singleFlightStats().get("coalesced");
+
+        List<Future<Map<String, Object>>> results = submitLookups("hot");
+        awaitCoalesced(coalesced + CONCURRENT_LOOKUPS - 1);
+        release.countDown();
+
+        for (Future<Map<String, Object>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).containsEntry("id", "hot").containsEntry("capacity", 30);
+        }
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(Map.class));
+        assertThat(catalogClient.singleFlightStats()).containsEntry("inFlight", 0);
+    }
+
+    @Test
+    void failureIsSharedByWaitingLookups() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(restTemplate.getForObject(anyString(), eq(Map.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new ResourceAccessException("Connection refused");
+        });
+        long coalesced = (long) catalogClient.singleFlightStats().get("coalesced");
+
+        List<Future<Map<String, Object>>> results = submitLookups("down");
+        awaitCoalesced(coalesced + CONCURRENT_LOOKUPS - 1);
+        release.countDown();
+
+        for (Future<Map<String, Object>> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(BusinessException.class);
+        }
+        verify(restTemplate, times(1)).getForObject(anyString(), eq(Map.class));
+    }
+
+    private List<Future<Map<String, Object>>> submitLookups(String courseId) {
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_LOOKUPS; i++) {
+            results.add(executor.submit(() -> catalogClient.getCourseInfo(courseId)));
+        }
+        return results;
+    }
+
+    private void awaitCoalesced(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) catalogClient.singleFlightStats().get("coalesced") < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(catalogClient.singleFlightStats().get("coalesced")).isEqualTo(expected);
+    }
+
+    private Map<String, Object> courseResponse(String courseId) {
+        Map<String, Object> course = new HashMap<>();
+        course.put("id", courseId);
+        course.put("title", "课程" + courseId);
+        course.put("capacity", 30);
+        course.put("enrolledCount", 10);
+        return Map.of("code", 200, "data", course);
+    }
+}
@@ -0,0 +1,43 @@
+package com.zjgsu.obl.enrollment_service.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 课程信息缓存：人数字段过期后完整信息不再命中，静态字段在 static-ttl 内仍然命中
+ */
+class CourseInfoCacheTest {
+    private CourseInfoCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CourseInfoCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        ReflectionTestUtils.setField(cache, "staticTtl", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(cache, "countTtl", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void staticFieldsOutliveCounts() {
+        cache.put("c1", Map.of("id", "c1", "title", "高等数学", "capacity", 30, "enrolledCount", 10));
+        cache.invalidateCounts("c1");
+
+        assertThat(cache.get("c1")).isNull();
+        assertThat(cache.getStatic("c1")).containsEntry("title", "高等数学").doesNotContainKeys("capacity", "enrolledCount");
+        assertThat(cache.stats()).containsEntry("staticHits", 1L).containsEntry("countMisses", 1L);
+    }
+
+    @Test
+    void staticFieldsExpireAfterStaticTtl() {
+        ReflectionTestUtils.setField(cache, "staticTtl", Duration.ZERO);
+        cache.put("c1", Map.of("id", "c1", "title", "高等数学"));
+
+        assertThat(cache.getStatic("c1")).isNull();
+    }
+}
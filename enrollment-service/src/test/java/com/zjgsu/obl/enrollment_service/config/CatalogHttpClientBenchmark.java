@@ -0,0 +1,142 @@
+package com.zjgsu.obl.enrollment_service.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 对比默认 RestTemplate（HttpURLConnection）与连接池客户端的吞吐量和延迟。
+ * 本地启动一个模拟课程服务（每次响应固定延迟），不依赖数据库，直接运行 main 即可：
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.zjgsu.obl.enrollment_service.config.CatalogHttpClientBenchmark
+ *
+ * 参数：[并发数, 默认 64] [每个客户端的请求总数, 默认 20000] [模拟服务延迟毫秒, 默认 2]
+ */
+public class CatalogHttpClientBenchmark {
+    private static final String COURSE_JSON = "{\"code\":200,\"message\":\"Success\",\"data\":"
+            + "{\"id\":\"c1\",\"courseCode\":\"CS101\",\"title\":\"计算机科学导论\",\"capacity\":60,\"enrolledCount\":0}}";
+
+    public static void main(String[] args) throws Exception {
+        // 模拟服务关闭 Nagle，避免与延迟确认叠加导致每个请求多出约 40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        long serverDelayMs = args.length > 2 ? Long.parseLong(args[2]) : 2;
+
+        HttpServer server = startCatalogStub(serverDelayMs);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/courses/c1";
+        try {
+            PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                    .setMaxConnTotal(200)
+                    .setMaxConnPerRoute(100)
+                    .setDefaultConnectionConfig(ConnectionConfig.custom()
+                            .setConnectTimeout(Timeout.ofSeconds(1))
+                            .setSocketTimeout(Timeout.ofSeconds(3))
+                            .build())
+                    .build();
+            RestTemplate pooled = new RestTemplate(new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofMilliseconds(500))
+                            .build())
+                    .setKeepAliveStrategy((response, context) -> TimeValue.ofSeconds(30))
+                    .build()));
+
+            // 预热
+            run("warm-up", new RestTemplate(), url, concurrency, requests / 10, false);
+            run("warm-up", pooled, url, concurrency, requests / 10, false);
+
+            run("default (HttpURLConnection)", new RestTemplate(), url, concurrency, requests, true);
+            run("pooled (HttpClient 5)", pooled, url, concurrency, requests, true);
+            connectionManager.close(CloseMode.IMMEDIATE);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static HttpServer startCatalogStub(long delayMs) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(Executors.newFixedThreadPool(256, r -> {
+            Thread thread = new Thread(r, "catalog-stub");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/api/courses/", exchange -> {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = COURSE_JSON.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void run(String name, RestTemplate restTemplate, String url,
+                            int concurrency, int requests, boolean report) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        int perThread = requests / concurrency;
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < concurrency; t++) {
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    long begin = System.nanoTime();
+                    restTemplate.getForObject(url, Map.class);
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[perThread * concurrency];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        if (report) {
+            Arrays.sort(all);
+            System.out.printf("%-30s throughput=%8.0f req/s  p50=%6.2f ms  p99=%6.2f ms  max=%7.2f ms%n",
+                    name,
+                    all.length / (elapsed / 1e9),
+                    all[all.length / 2] / 1e6,
+                    all[(int) (all.length * 0.99)] / 1e6,
+                    all[all.length - 1] / 1e6);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.zjgsu.obl.enrollment_service.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.SeatOutboxRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import com.zjgsu.obl.enrollment_service.service.EnrollmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 按课程分组的活跃选课数：一次分组查询返回多门课程的人数，并带上 outbox 中尚未投递的人数变化
+ */
+@SpringBootTest(properties = "enrollment.outbox.relay-enabled=false")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class ActiveCountsTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SeatOutboxRepository seatOutboxRepository;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    @BeforeEach
+    void setUp() {
+        seatOutboxRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        when(catalogClient.reserveSeat(anyString())).thenReturn(true);
+
+        List<String> studentIds = TestStudents.saveAll(studentRepository, "AC", 3);
+        // course-a 选 3 人后退 1 人（退课的人数变化还在 outbox 中），course-b 选 1 人
+        List<Enrollment> courseA = new ArrayList<>();
+        for (String studentId : studentIds) {
+            courseA.add(enrollmentService.enrollStudent("course-a", studentId));
+        }
+        enrollmentService.enrollStudent("course-b", studentIds.get(0));
+        enrollmentService.dropEnrollment(courseA.get(0).getId());
+    }
+
+    @Test
+    void countsRequestedCoursesIncludingEmptyOnes() throws Exception {
+        mockMvc.perform(post("/api/enrollments/active-counts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"course-a\", \"course-b\", \"course-c\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(3))
+                .andExpect(jsonPath("$.data[0].courseId").value("course-a"))
+                .andExpect(jsonPath("$.data[0].active").value(2))
+                .andExpect(jsonPath("$.data[0].pending").value(-1))
+                .andExpect(jsonPath("$.data[1].active").value(1))
+                .andExpect(jsonPath("$.data[1].pending").value(0))
+                .andExpect(jsonPath("$.data[2].courseId").value("course-c"))
+                .andExpect(jsonPath("$.data[2].active").value(0));
+    }
+
+    @Test
+    void pagesThroughAllCoursesByCourseId() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/enrollments/active-counts").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.data[0].courseId").value("course-a"))
+                .andExpect(jsonPath("$.data[0].active").value(2))
+                .andExpect(jsonPath("$.next").exists())
+                .andReturn();
+        String next = JsonPath.read(first.getResponse().getContentAsString(), "$.next");
+
+        mockMvc.perform(get("/api/enrollments/active-counts").param("size", "1").param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].courseId").value("course-b"))
+                .andExpect(jsonPath("$.data[0].active").value(1))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+}
@@ -0,0 +1,131 @@
+package com.zjgsu.obl.enrollment_service.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.common.CursorPage;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 游标分页：next 原样传回 cursor 可翻完整个列表，每条记录只出现一次，最后一页不返回 next；
+ * 按课程、学生、状态过滤的列表同样按游标翻页，无效游标返回 400
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class EnrollmentCursorPaginationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private final List<String> courseA = new ArrayList<>();
+
+    private Student firstStudent;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        courseA.clear();
+
+        List<Student> students = studentRepository.saveAll(TestStudents.create("PG", 5));
+        firstStudent = students.get(0);
+        for (Student student : students) {
+            courseA.add(enrollmentRepository.save(new Enrollment(student, "course-a")).getId());
+        }
+        enrollmentRepository.save(new Enrollment(firstStudent, "course-b"));
+        Enrollment dropped = new Enrollment(firstStudent, "course-c");
+        dropped.setStatus(EnrollmentStatus.DROPPED);
+        enrollmentRepository.save(dropped);
+
+        when(catalogClient.getCourseInfos(any())).thenReturn(Map.of());
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        String cursor = CursorPage.encode(courseA.get(0));
+        assertThat(CursorPage.decode(cursor)).isEqualTo(courseA.get(0));
+        assertThat(CursorPage.decode(null)).isEmpty();
+    }
+
+    @Test
+    void walksCourseListPageByPage() throws Exception {
+        assertThat(walk("/api/enrollments/course/course-a?size=2", "$.data[*].id"))
+                .containsExactlyInAnyOrderElementsOf(courseA)
+                .doesNotHaveDuplicates();
+        assertThat(walk("/api/enrollments/course/course-a?view=summary&size=2", "$.data[*].id"))
+                .containsExactlyInAnyOrderElementsOf(courseA);
+    }
+
+    @Test
+    void walksStudentAndStatusListsPageByPage() throws Exception {
+        assertThat(walk("/api/enrollments/student/" + firstStudent.getId() + "?size=1", "$.data[*].courseId"))
+                .containsExactlyInAnyOrder("course-a", "course-b", "course-c");
+        assertThat(walk("/api/enrollments/status/ACTIVE?view=summary&size=4", "$.data[*].id"))
+                .hasSize(6)
+                .doesNotHaveDuplicates();
+        assertThat(walk("/api/enrollments/status/DROPPED?size=4", "$.data[*].courseId"))
+                .containsExactly("course-c");
+    }
+
+    @Test
+    void rejectsInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/enrollments/course/course-a?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(400));
+    }
+
+    /**
+     * 从第一页开始跟着 next 翻到最后一页，收集每页的字段值；最后一页之前的每页都必须是满页
+     */
+    private List<String> walk(String firstPage, String field) throws Exception {
+        int size = Integer.parseInt(firstPage.substring(firstPage.lastIndexOf("size=") + 5));
+        List<String> values = new ArrayList<>();
+        String url = firstPage;
+        for (int pages = 0; pages < 20; pages++) {
+            String body = mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<String> page = JsonPath.read(body, field);
+            values.addAll(page);
+            Map<String, Object> response = JsonPath.read(body, "$");
+            if (!response.containsKey("next")) {
+                return values;
+            }
+            assertThat(page).hasSize(size);
+            url = firstPage + "&cursor=" + response.get("next");
+        }
+        throw new AssertionError("游标分页没有结束: " + firstPage);
+    }
+}
@@ -0,0 +1,120 @@
+package com.zjgsu.obl.enrollment_service.controller;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CourseInfoCache;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 选课列表补充课程信息：一页记录中的课程去重后只调用一次 /api/courses/batch，
+ * 课程服务中不存在的课程不带 courseInfo，其余记录照常返回
+ */
+@SpringBootTest(properties = "enrollment.outbox.relay-enabled=false")
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class EnrollmentEnrichmentTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseInfoCache courseInfoCache;
+
+    @MockitoBean
+    private RestTemplate restTemplate;
+
+    private final List<List<String>> batchRequests = new ArrayList<>();
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        batchRequests.clear();
+        List.of("math", "physics", "retired").forEach(courseInfoCache::invalidate);
+
+        // 课程服务只认识 math 和 physics
+        when(restTemplate.postForObject(anyString(), any(), eq(Map.class))).thenAnswer(invocation -> {
+            List<String> courseIds = new ArrayList<>(invocation.<Collection<String>>getArgument(1));
+            batchRequests.add(courseIds);
+            return Map.of("data", courseIds.stream()
+                    .filter(id -> id.equals("math") || id.equals("physics"))
+                    .map(id -> Map.of("id", id, "title", "课程" + id))
+                    .toList());
+        });
+    }
+
+    @Test
+    void enrichesWholePageWithOneBatchCall() throws Exception {
+        List<Student> students = studentRepository.saveAll(TestStudents.create("EN", 4));
+        student = students.get(0);
+        for (Student each : students) {
+            enrollmentRepository.save(new Enrollment(each, "math"));
+        }
+        enrollmentRepository.save(new Enrollment(student, "physics"));
+        enrollmentRepository.save(new Enrollment(student, "retired"));
+
+        mockMvc.perform(get("/api/enrollments?size=50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(6))
+                .andExpect(jsonPath("$.data[?(@.courseId == 'math')].courseInfo.title").value(everyItem(is("课程math"))))
+                .andExpect(jsonPath("$.data[?(@.courseId == 'retired')].courseInfo").value(everyItem(nullValue())));
+
+        // 6 条记录、3 门不同课程，只发出一次批量请求
+        assertThat(batchRequests).singleElement()
+                .satisfies(ids -> assertThat(ids).containsExactlyInAnyOrder("math", "physics", "retired"));
+        verify(restTemplate, never()).getForObject(anyString(), eq(Map.class));
+    }
+
+    @Test
+    void studentListEnrichesWithOneBatchCallAndKeepsMissingCourses() throws Exception {
+        student = studentRepository.saveAll(TestStudents.create("EN", 1)).get(0);
+        enrollmentRepository.save(new Enrollment(student, "physics"));
+        enrollmentRepository.save(new Enrollment(student, "retired"));
+
+        mockMvc.perform(get("/api/enrollments/student/" + student.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2))
+                .andExpect(jsonPath("$.data[?(@.courseId == 'physics')].courseInfo.title").value("课程physics"))
+                .andExpect(jsonPath("$.data[?(@.courseId == 'retired')].student.studentId").value("EN0"));
+
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(Map.class));
+    }
+}
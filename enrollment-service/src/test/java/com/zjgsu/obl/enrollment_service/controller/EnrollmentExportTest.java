@@ -0,0 +1,143 @@
+package com.zjgsu.obl.enrollment_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 名单导出：NDJSON 每行一条记录，CSV 带 BOM 和表头并转义逗号、引号和换行；
+ * 响应在最后一条记录后结束，跨多次刷新（flush-rows）写出的记录不重复、不丢失
+ */
+@SpringBootTest(properties = {
+        // 每 2 行刷新一次并清空持久化上下文，5 条记录跨越多次刷新
+        "enrollment.export.flush-rows=2"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class EnrollmentExportTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    private final List<String> mathIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        mathIds.clear();
+
+        List<Student> students = TestStudents.create("EX", 5);
+        students.get(1).setName("Li, Ming");
+        students.get(2).setName("张\"三\"");
+        students.get(3).setName("多行\n姓名");
+        students.get(4).setGrade(2024);
+        for (Student student : studentRepository.saveAll(students)) {
+            mathIds.add(enrollmentRepository.save(new Enrollment(student, "math")).getId());
+        }
+        Enrollment dropped = new Enrollment(students.get(0), "physics");
+        dropped.setStatus(EnrollmentStatus.DROPPED);
+        enrollmentRepository.save(dropped);
+    }
+
+    @Test
+    void streamsNdjsonOneRecordPerLine() throws Exception {
+        MockHttpServletResponse response = export("/api/enrollments/export?format=ndjson&courseId=math");
+        assertThat(response.getContentType()).startsWith("application/x-ndjson");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("enrollments-math.ndjson");
+
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).endsWith("}\n");
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+
+        // 按主键顺序输出，每条记录恰好一次，最后一条之后没有多余内容
+        assertThat(rows).extracting(row -> row.get("id").asText()).containsExactlyElementsOf(mathIds);
+        assertThat(rows).extracting(row -> row.get("studentName").asText())
+                .containsExactly("学生0", "Li, Ming", "张\"三\"", "多行\n姓名", "学生4");
+        assertThat(rows.get(4).get("grade").asInt()).isEqualTo(2024);
+        assertThat(rows.get(0).get("grade").isNull()).isTrue();
+        assertThat(rows).allSatisfy(row -> assertThat(row.get("status").asText()).isEqualTo("ACTIVE"));
+    }
+
+    @Test
+    void streamsCsvWithEscaping() throws Exception {
+        MockHttpServletResponse response = export("/api/enrollments/export?format=csv&courseId=math");
+        assertThat(response.getContentType()).startsWith("text/csv");
+
+        String body = response.getContentAsString(StandardCharsets.UTF_8);
+        assertThat(body).startsWith("\uFEFFid,courseId,studentUuid,studentId,studentName,");
+        assertThat(body).endsWith("\r\n");
+
+        // 记录以 CRLF 结尾，字段内的换行只有 LF，按 CRLF 切分正好得到表头加每条记录
+        String[] lines = body.substring(1).split("\r\n");
+        assertThat(lines).hasSize(1 + mathIds.size());
+        assertThat(lines[2]).startsWith(mathIds.get(1) + ",math,").contains(",\"Li, Ming\",");
+        assertThat(lines[3]).contains(",\"张\"\"三\"\"\",");
+        assertThat(lines[4]).contains(",\"多行\n姓名\",");
+        assertThat(lines[5]).contains(",2024,");
+    }
+
+    @Test
+    void filtersByStatusAndEndsCleanlyWhenEmpty() throws Exception {
+        String dropped = export("/api/enrollments/export?format=ndjson&status=DROPPED")
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertThat(dropped).endsWith("\n").hasLineCount(1);
+        assertThat(objectMapper.readTree(dropped).get("courseId").asText()).isEqualTo("physics");
+
+        assertThat(export("/api/enrollments/export?format=ndjson&courseId=none")
+                .getContentAsString(StandardCharsets.UTF_8)).isEmpty();
+        assertThat(export("/api/enrollments/export?format=csv&courseId=none")
+                .getContentAsString(StandardCharsets.UTF_8)).hasLineCount(1);
+    }
+
+    @Test
+    void rejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/api/enrollments/export?format=xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletResponse export(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+    }
+}
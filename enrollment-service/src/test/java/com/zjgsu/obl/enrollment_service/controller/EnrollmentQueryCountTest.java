@@ -0,0 +1,167 @@
+package com.zjgsu.obl.enrollment_service.controller;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 用 Hibernate 统计信息检查各选课列表接口执行的 SQL 条数：
+ * 每个接口只允许一条查询（选课记录连同学生一起查出），出现按学生逐条加载的 N+1 查询时测试失败
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // 统计信息是全局的，后台投递 outbox 的查询会混进来
+        "enrollment.outbox.relay-enabled=false",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class EnrollmentQueryCountTest {
+    private static final int STUDENT_COUNT = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private Statistics statistics;
+
+    private Student firstStudent;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+
+        List<Student> students = studentRepository.saveAll(TestStudents.create("2024", STUDENT_COUNT));
+        firstStudent = students.get(0);
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            enrollmentRepository.save(new Enrollment(student, "course-a"));
+            if (i % 2 == 0) {
+                enrollmentRepository.save(new Enrollment(student, "course-b"));
+            }
+        }
+
+        when(catalogClient.getCourseInfos(any())).thenReturn(Map.of());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listByCourseUsesSingleQuery() throws Exception {
+        assertSingleQuery("/api/enrollments/course/course-a", STUDENT_COUNT);
+    }
+
+    @Test
+    void listByStudentUsesSingleQuery() throws Exception {
+        assertSingleQuery("/api/enrollments/student/" + firstStudent.getId(), 2);
+    }
+
+    @Test
+    void listByStatusUsesSingleQuery() throws Exception {
+        assertSingleQuery("/api/enrollments/status/ACTIVE", 8);
+    }
+
+    @Test
+    void multipleCriteriaQueryUsesSingleQuery() throws Exception {
+        assertSingleQuery("/api/enrollments/query?courseCode=course-a", STUDENT_COUNT);
+    }
+
+    @Test
+    void cursorPageUsesSingleQuery() throws Exception {
+        assertSingleQuery("/api/enrollments?size=20", 8);
+    }
+
+    @Test
+    void offsetPageUsesSingleQuery() throws Exception {
+        assertSingleQuery("/api/enrollments?page=0&size=20", 8);
+    }
+
+    @Test
+    void summaryViewsUseSingleQueryWithoutLoadingEntities() throws Exception {
+        assertSummaryQuery("/api/enrollments/course/course-a?view=summary", STUDENT_COUNT);
+        assertSummaryQuery("/api/enrollments/student/" + firstStudent.getId() + "?view=summary", 2);
+        assertSummaryQuery("/api/enrollments/status/ACTIVE?view=summary", 8);
+        assertSummaryQuery("/api/enrollments?view=summary&size=20", 8);
+        assertSummaryQuery("/api/enrollments?view=summary&page=0&size=20", 8);
+    }
+
+    @Test
+    void exportUsesSingleQuery() throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(get("/api/enrollments/export?format=ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.lines()).hasSize(8);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void assertSingleQuery(String url, int expectedRows) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(expectedRows))
+                .andExpect(jsonPath("$.data[0].student.name").exists());
+
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements executed by GET %s", url)
+                .isEqualTo(1);
+    }
+
+    private void assertSummaryQuery(String url, int expectedRows) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(expectedRows))
+                .andExpect(jsonPath("$.data[0].studentName").exists())
+                .andExpect(jsonPath("$.data[0].student").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements executed by GET %s", url)
+                .isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount())
+                .as("entities loaded by GET %s", url)
+                .isZero();
+    }
+}
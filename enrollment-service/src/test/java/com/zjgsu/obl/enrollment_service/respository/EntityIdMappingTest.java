@@ -0,0 +1,97 @@
+package com.zjgsu.obl.enrollment_service.respository;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.dto.EnrollmentSummary;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 学生和选课记录主键：按时间排序的 UUIDv7，存为 BINARY(16)（外键 student_id 随之变为 BINARY(16)），
+ * 引用课程服务的 course_id 仍是 36 位字符串
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EntityIdMappingTest {
+    private static final String UUID_V7 = "[0-9a-f]{8}-[0-9a-f]{4}-7[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private final List<String> studentIds = new ArrayList<>();
+    private final List<String> enrollmentIds = new ArrayList<>();
+    private final String courseId = UUID.randomUUID().toString();
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        studentIds.clear();
+        enrollmentIds.clear();
+        for (Student student : studentRepository.saveAll(TestStudents.create("ID", 12))) {
+            studentIds.add(student.getId());
+            enrollmentIds.add(enrollmentRepository.save(new Enrollment(student, courseId)).getId());
+        }
+    }
+
+    @Test
+    void primaryAndForeignKeysAreBinaryCourseIdStaysString() {
+        assertThat(studentIds).allMatch(id -> id.matches(UUID_V7)).isSorted();
+        assertThat(enrollmentIds).allMatch(id -> id.matches(UUID_V7)).isSorted();
+
+        assertThat(column("STUDENTS", "ID")).containsEntry("DATA_TYPE", "BINARY");
+        assertThat(column("ENROLLMENTS", "ID")).containsEntry("DATA_TYPE", "BINARY");
+        assertThat(column("ENROLLMENTS", "STUDENT_ID")).containsEntry("DATA_TYPE", "BINARY");
+        assertThat(column("ENROLLMENTS", "COURSE_ID")).containsEntry("DATA_TYPE", "CHARACTER VARYING");
+        assertThat(jdbcTemplate.queryForObject("SELECT DISTINCT course_id FROM enrollments", String.class))
+                .isEqualTo(courseId);
+    }
+
+    @Test
+    void queriesBindStringIds() {
+        String studentId = studentIds.get(5);
+
+        assertThat(enrollmentRepository.findByStudentId(studentId)).singleElement()
+                .satisfies(enrollment -> assertThat(enrollment.getStudent().getId()).isEqualTo(studentId));
+        assertThat(enrollmentRepository.findStatusesByCourseIdAndStudentIds(courseId,
+                List.of(studentIds.get(0), studentIds.get(1), "missing-student"))).hasSize(2);
+        assertThat(enrollmentRepository.existsByCourseIdAndStudentIdAndStatus(courseId, studentId)).isTrue();
+        assertThat(studentRepository.findById("missing-student")).isEmpty();
+
+        List<EnrollmentSummary> firstPage = enrollmentRepository.findSummariesAfter("", Limit.of(5));
+        List<EnrollmentSummary> secondPage = enrollmentRepository.findSummariesAfter(
+                firstPage.get(4).id(), Limit.of(5));
+        assertThat(firstPage).extracting(EnrollmentSummary::id).containsExactlyElementsOf(enrollmentIds.subList(0, 5));
+        assertThat(secondPage).extracting(EnrollmentSummary::studentUuid)
+                .containsExactlyElementsOf(studentIds.subList(5, 10));
+    }
+
+    private Map<String, Object> column(String table, String column) {
+        return jdbcTemplate.queryForMap("SELECT DATA_TYPE, CHARACTER_OCTET_LENGTH FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = ? AND COLUMN_NAME = ?", table, column);
+    }
+}
@@ -0,0 +1,146 @@
+package com.zjgsu.obl.enrollment_service.respository;
+
+import com.zjgsu.obl.enrollment_service.common.TimeOrderedUuid;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * 对比两种主键方案持续写入时的吞吐量和表/索引大小，表结构与 enrollments 相同：
+ *
+ *   varchar：随机 UUID（uuid2）存为 VARCHAR(36)，student_id 外键同样是 VARCHAR(36)
+ *   binary ：按时间排序的 UUIDv7 存为 BINARY(16)，student_id 外键同样是 BINARY(16)
+ *
+ * 两种方案的 course_id 都是 VARCHAR(36)。每写入 1/10 的行数输出一次这一段的吞吐量，
+ * 随机主键在表超出 buffer pool 后会明显变慢。需要一个可以建表的 MySQL 库：
+ *
+ *   mvn test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.zjgsu.obl.enrollment_service.respository.PrimaryKeyInsertBenchmark \
+ *       -Dexec.args="jdbc:mysql://localhost:3306/enrollment_db?rewriteBatchedStatements=true root root 10000000"
+ *
+ * 参数：[JDBC 地址] [用户名] [密码] [每种方案写入的行数, 默认 10000000] [每批行数, 默认 1000]
+ */
+public class PrimaryKeyInsertBenchmark {
+    private static final int COURSES = 2_000;
+    private static final int STUDENTS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0]
+                : "jdbc:mysql://localhost:3306/enrollment_db?useSSL=false&allowPublicKeyRetrieval=true"
+                + "&rewriteBatchedStatements=true";
+        String username = args.length > 1 ? args[1] : "enrollment_user";
+        String password = args.length > 2 ? args[2] : "enrollment_password";
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 10_000_000;
+        int batchSize = args.length > 4 ? Integer.parseInt(args[4]) : 1_000;
+
+        String[] courseIds = new String[COURSES];
+        for (int i = 0; i < COURSES; i++) {
+            courseIds[i] = UUID.randomUUID().toString();
+        }
+
+        try (Connection connection = DriverManager.getConnection(url, username, password)) {
+            connection.setAutoCommit(false);
+            run(connection, new Variant("varchar", "VARCHAR(36)") {
+                @Override
+                Object newId() {
+                    return UUID.randomUUID().toString();
+                }
+            }, courseIds, rows, batchSize);
+            run(connection, new Variant("binary", "BINARY(16)") {
+                @Override
+                Object newId() {
+                    return TimeOrderedUuid.toBytes(TimeOrderedUuid.generate());
+                }
+            }, courseIds, rows, batchSize);
+        }
+    }
+
+    private static void run(Connection connection, Variant variant, String[] courseIds,
+                            int rows, int batchSize) throws SQLException {
+        String table = "pk_bench_" + variant.name;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " ("
+                    + "id " + variant.keyType + " NOT NULL PRIMARY KEY, "
+                    + "student_id " + variant.keyType + " NOT NULL, "
+                    + "course_id VARCHAR(36) NOT NULL, "
+                    + "status VARCHAR(20) NOT NULL, "
+                    + "enrolled_at TIMESTAMP NOT NULL, "
+                    + "CONSTRAINT uk_" + table + " UNIQUE (course_id, student_id))");
+            statement.execute("CREATE INDEX idx_" + table + "_course_status ON " + table + " (course_id, status)");
+            statement.execute("CREATE INDEX idx_" + table + "_student_status ON " + table + " (student_id, status)");
+        }
+        connection.commit();
+
+        // 学生主键先生成好，与真实场景一样：选课时引用的是已存在的学生
+        Object[] studentIds = new Object[STUDENTS];
+        for (int i = 0; i < STUDENTS; i++) {
+            studentIds[i] = variant.newId();
+        }
+
+        System.out.printf("%n[%s] 主键 %s，写入 %,d 行%n", variant.name, variant.keyType, rows);
+        int report = Math.max(rows / 10, batchSize);
+        long start = System.nanoTime();
+        long windowStart = start;
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                + " (id, student_id, course_id, status, enrolled_at) VALUES (?, ?, ?, 'ACTIVE', ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                // (课程, 学生) 组合在 2 亿行以内不重复
+                insert.setObject(1, variant.newId());
+                insert.setObject(2, studentIds[(i / COURSES) % STUDENTS]);
+                insert.setString(3, courseIds[i % COURSES]);
+                insert.setTimestamp(4, now);
+                insert.addBatch();
+                if (i % batchSize == 0 || i == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                if (i % report == 0 || i == rows) {
+                    long current = System.nanoTime();
+                    int windowRows = i % report == 0 ? report : i % report;
+                    System.out.printf("  %,12d 行  本段 %,10.0f 行/秒%n", i, windowRows / ((current - windowStart) / 1e9));
+                    windowStart = current;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("  合计 %.1f 秒，平均 %,.0f 行/秒%n", seconds, rows / seconds);
+        printSize(connection, table);
+    }
+
+    private static void printSize(Connection connection, String table) throws SQLException {
+        if (!connection.getMetaData().getURL().startsWith("jdbc:mysql:")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + table);
+            try (ResultSet rs = statement.executeQuery("SELECT data_length, index_length FROM information_schema.TABLES "
+                    + "WHERE table_schema = DATABASE() AND table_name = '" + table + "'")) {
+                if (rs.next()) {
+                    System.out.printf("  聚簇索引（数据） %,d MB，二级索引 %,d MB%n",
+                            rs.getLong(1) >> 20, rs.getLong(2) >> 20);
+                }
+            }
+        }
+        connection.commit();
+    }
+
+    private abstract static class Variant {
+        final String name;
+        final String keyType;
+
+        Variant(String name, String keyType) {
+            this.name = name;
+            this.keyType = keyType;
+        }
+
+        abstract Object newId();
+    }
+}
@@ -0,0 +1,123 @@
+package com.zjgsu.obl.enrollment_service.respository;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对动态条件查询实际生成的 SQL 执行 EXPLAIN，确认只包含传入的条件并命中对应的复合索引
+ */
+@SpringBootTest(properties = {
+        "enrollment.outbox.relay-enabled=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.zjgsu.obl.enrollment_service.respository.QueryPlanTest$CapturingInspector"
+})
+@ActiveProfiles("test")
+class QueryPlanTest {
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        String[] majors = {"计算机科学与技术", "软件工程", "数学", "物理"};
+        List<Student> students = TestStudents.create("S", 200);
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            student.setMajor(majors[i % majors.length]);
+            student.setGrade(2021 + i % 4);
+            student = studentRepository.save(student);
+            for (int c = 0; c < 3; c++) {
+                Enrollment enrollment = new Enrollment(student, "course-" + ((i + c) % 20));
+                enrollment.setStatus(c == 2 ? EnrollmentStatus.DROPPED : EnrollmentStatus.ACTIVE);
+                enrollmentRepository.save(enrollment);
+            }
+        }
+        jdbcTemplate.execute("ANALYZE");
+        statements.clear();
+    }
+
+    @Test
+    void enrollmentsByCourseAndStatusUseCourseStatusIndex() {
+        enrollmentRepository.findAll(EnrollmentSpecifications.matching("course-3", null, EnrollmentStatus.ACTIVE));
+
+        String sql = lastSelect();
+        assertThat(sql).doesNotContainIgnoringCase("is null");
+        assertThat(explain(sql, "course-3", "ACTIVE")).contains("IDX_ENROLLMENTS_COURSE_STATUS");
+    }
+
+    @Test
+    void enrollmentsByCourseOnlyUseCourseStatusIndexPrefix() {
+        enrollmentRepository.findAll(EnrollmentSpecifications.matching("course-3", null, null));
+
+        String sql = lastSelect();
+        assertThat(sql).doesNotContainIgnoringCase("is null");
+        assertThat(whereClause(sql)).doesNotContainIgnoringCase("status");
+        assertThat(explain(sql, "course-3")).contains("IDX_ENROLLMENTS_COURSE_STATUS");
+    }
+
+    @Test
+    void enrollmentsByStudentNoAndStatusUseStudentStatusIndex() {
+        enrollmentRepository.findAll(EnrollmentSpecifications.matching(null, "S7", EnrollmentStatus.ACTIVE));
+
+        String sql = lastSelect();
+        assertThat(sql).doesNotContainIgnoringCase("is null");
+        assertThat(explain(sql, "S7", "ACTIVE")).contains("IDX_ENROLLMENTS_STUDENT_STATUS");
+    }
+
+    @Test
+    void studentsByMajorAndGradeUseMajorGradeIndex() {
+        studentRepository.findAll(StudentSpecifications.matching(null, "数学", 2023));
+
+        String sql = lastSelect();
+        assertThat(sql).doesNotContainIgnoringCase("is null");
+        assertThat(explain(sql, "数学", 2023)).contains("IDX_STUDENTS_MAJOR_GRADE");
+    }
+
+    private String lastSelect() {
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).trim().toLowerCase().startsWith("select")) {
+                return statements.get(i);
+            }
+        }
+        throw new AssertionError("no SELECT captured: " + statements);
+    }
+
+    private String whereClause(String sql) {
+        return sql.substring(sql.toLowerCase().lastIndexOf(" where "));
+    }
+
+    private String explain(String sql, Object... args) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, args));
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentTicket;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.model.TicketStatus;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.SeatOutboxRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异步选课：一批凭证按课程各占座一次、批量写入，逐项结果写回对应的凭证；一行写入失败不影响同批其他凭证
+ */
+@SpringBootTest(properties = {
+        "enrollment.outbox.relay-enabled=false",
+        "enrollment.timetable.enabled=false",
+        // 不启动工作线程，由测试直接处理一批凭证
+        "enrollment.async.workers=0"
+})
+@ActiveProfiles("test")
+class AsyncEnrollmentServiceTest {
+    @Autowired
+    private AsyncEnrollmentService asyncEnrollmentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SeatOutboxRepository seatOutboxRepository;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private final List<String> studentIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        seatOutboxRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        studentIds.clear();
+        studentIds.addAll(TestStudents.saveAll(studentRepository, "ASYNC", 4));
+    }
+
+    @Test
+    void batchReservesSeatsOncePerCourse() {
+        when(catalogClient.reserveSeats("course-a", 3)).thenReturn(2);
+        when(catalogClient.reserveSeats("course-b", 1)).thenReturn(1);
+        List<EnrollmentTicket> batch = List.of(
+                new EnrollmentTicket("course-a", studentIds.get(0)),
+                new EnrollmentTicket("course-b", studentIds.get(0)),
+                new EnrollmentTicket("course-a", studentIds.get(1)),
+                new EnrollmentTicket("course-a", studentIds.get(2)));
+
+        ReflectionTestUtils.invokeMethod(asyncEnrollmentService, "processBatch", batch);
+
+        assertThat(batch).extracting(EnrollmentTicket::getStatus).containsExactly(
+                TicketStatus.SUCCEEDED, TicketStatus.SUCCEEDED, TicketStatus.SUCCEEDED, TicketStatus.FAILED);
+        assertThat(batch.get(3).getMessage()).isEqualTo("课程容量已满，无法选课");
+        assertThat(batch.subList(0, 3)).allSatisfy(ticket ->
+                assertThat(enrollmentRepository.findById(ticket.getEnrollmentId())).isPresent());
+        verify(catalogClient, times(2)).reserveSeats(anyString(), anyInt());
+        assertThat(enrollmentRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void failedRowDoesNotFailOtherTickets() {
+        // 占座期间同一学生通过单条选课先写入，只有这张凭证失败，同批其他学生照常选课
+        when(catalogClient.reserveSeats("course-a", 3)).thenAnswer(invocation -> {
+            Student racing = studentRepository.findById(studentIds.get(1)).orElseThrow();
+            enrollmentRepository.save(new Enrollment(racing, "course-a"));
+            return 3;
+        });
+        List<EnrollmentTicket> batch = List.of(
+                new EnrollmentTicket("course-a", studentIds.get(0)),
+                new EnrollmentTicket("course-a", studentIds.get(1)),
+                new EnrollmentTicket("course-a", studentIds.get(2)));
+
+        ReflectionTestUtils.invokeMethod(asyncEnrollmentService, "processBatch", batch);
+
+        assertThat(batch).extracting(EnrollmentTicket::getStatus).containsExactly(
+                TicketStatus.SUCCEEDED, TicketStatus.FAILED, TicketStatus.SUCCEEDED);
+        assertThat(seatOutboxRepository.findAll()).singleElement()
+                .satisfies(event -> assertThat(event.getDelta()).isEqualTo(-1));
+    }
+}
@@ -0,0 +1,190 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentRequest;
+import com.zjgsu.obl.enrollment_service.dto.BulkEnrollmentResult;
+import com.zjgsu.obl.enrollment_service.exception.ResourceNotFoundException;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.EnrollmentStatus;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.SeatOutboxRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量选课：逐项结果、每门课程一次占座调用，以及选课记录按 JDBC 批量写入
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // 归还的座位留在 outbox 中由测试检查
+        "enrollment.outbox.relay-enabled=false",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+class BulkEnrollmentServiceTest {
+    private static final int COHORT_SIZE = 120;
+
+    @Autowired
+    private BulkEnrollmentService bulkEnrollmentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SeatOutboxRepository seatOutboxRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private final List<String> studentIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        seatOutboxRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        studentIds.clear();
+
+        studentIds.addAll(TestStudents.saveAll(studentRepository, "BULK", COHORT_SIZE));
+    }
+
+    @Test
+    void enrollsCohortWithOneSeatCallAndBatchedInserts() {
+        when(catalogClient.reserveSeats("course-a", COHORT_SIZE)).thenReturn(COHORT_SIZE);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        BulkEnrollmentResult result = bulkEnrollmentService.enroll(
+                new BulkEnrollmentRequest("course-a", studentIds, null));
+
+        assertThat(result.succeeded()).isEqualTo(COHORT_SIZE);
+        assertThat(result.items()).allSatisfy(item -> assertThat(item.enrollmentId()).isNotNull());
+        assertThat(enrollmentRepository.countActiveEnrollmentsByCourse("course-a")).isEqualTo(COHORT_SIZE);
+        verify(catalogClient, times(1)).reserveSeats(anyString(), anyInt());
+
+        // 学生查询 + 已有记录查询 + 一次构建全部学生课表的查询 + 按 batch_size=50 分成的 3 个批次，而不是 120 条单独的 INSERT
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(COHORT_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void reportsPerItemFailures() {
+        Student enrolled = studentRepository.findById(studentIds.get(0)).orElseThrow();
+        enrollmentRepository.save(new Enrollment(enrolled, "course-a"));
+        when(catalogClient.reserveSeats("course-a", 2)).thenReturn(1);
+        when(catalogClient.reserveSeats("course-b", 1)).thenThrow(new ResourceNotFoundException("课程不存在: course-b"));
+
+        BulkEnrollmentResult result = bulkEnrollmentService.enroll(new BulkEnrollmentRequest("course-a",
+                List.of(studentIds.get(0), studentIds.get(1), studentIds.get(2), "missing-student", studentIds.get(1)),
+                List.of(new BulkEnrollmentRequest.Item("course-b", studentIds.get(3)))));
+
+        assertThat(result.requested()).isEqualTo(6);
+        assertThat(result.succeeded()).isEqualTo(1);
+        assertThat(result.items()).extracting(BulkEnrollmentResult.ItemResult::message).containsExactly(
+                "该学生已经选过这门课程",
+                "选课成功",
+                "课程容量已满，无法选课",
+                "学生不存在: missing-student",
+                "请求中重复的选课",
+                "课程不存在: course-b");
+        assertThat(enrollmentRepository.findByCourseIdAndStatus("course-a", EnrollmentStatus.ACTIVE)).hasSize(2);
+    }
+
+    @Test
+    void rejectsItemsClashingWithTimetable() {
+        Student busy = studentRepository.findById(studentIds.get(0)).orElseThrow();
+        enrollmentRepository.save(new Enrollment(busy, "math"));
+        when(catalogClient.getCourseStaticInfos(anyCollection()))
+                .thenReturn(Map.of("math", courseInfo("math", "MONDAY", "08:00", "10:00")));
+        when(catalogClient.getCourseStaticInfo("physics")).thenReturn(courseInfo("physics", "MONDAY", "09:00", "11:00"));
+        when(catalogClient.reserveSeats("physics", 1)).thenReturn(1);
+
+        BulkEnrollmentResult result = bulkEnrollmentService.enroll(
+                new BulkEnrollmentRequest("physics", List.of(studentIds.get(0), studentIds.get(1)), null));
+
+        assertThat(result.succeeded()).isEqualTo(1);
+        assertThat(result.items().get(0).success()).isFalse();
+        assertThat(result.items().get(0).message()).contains("上课时间冲突");
+        assertThat(result.items().get(1).success()).isTrue();
+        verify(catalogClient).reserveSeats("physics", 1);
+        assertThat(enrollmentRepository.findByCourseIdAndStatus("physics", EnrollmentStatus.ACTIVE))
+                .singleElement().satisfies(enrollment ->
+                        assertThat(enrollment.getStudent().getId()).isEqualTo(studentIds.get(1)));
+    }
+
+    @Test
+    void failedRowReleasesOnlyItsOwnSeat() {
+        // 占座期间学生被删除，批量写入因外键约束整批回滚，逐条写入后只有这一条失败
+        when(catalogClient.reserveSeats("course-a", 3)).thenAnswer(invocation -> {
+            studentRepository.deleteById(studentIds.get(1));
+            return 3;
+        });
+
+        BulkEnrollmentResult result = bulkEnrollmentService.enroll(new BulkEnrollmentRequest("course-a",
+                List.of(studentIds.get(0), studentIds.get(1), studentIds.get(2)), null));
+
+        assertThat(result.items()).extracting(BulkEnrollmentResult.ItemResult::success).containsExactly(true, false, true);
+        assertThat(result.items().get(1).message()).isEqualTo("写入选课记录失败，请重试");
+        assertThat(seatOutboxRepository.findAll()).singleElement().satisfies(event -> {
+            assertThat(event.getCourseId()).isEqualTo("course-a");
+            assertThat(event.getDelta()).isEqualTo(-1);
+        });
+        assertThat(enrollmentRepository.countActiveEnrollmentsByCourse("course-a")).isEqualTo(2);
+    }
+
+    @Test
+    void racingEnrollmentFailsOnlyTheDuplicateRow() {
+        // 占座期间同一学生通过单条选课先写入，批量写入撞上唯一约束
+        when(catalogClient.reserveSeats("course-a", 2)).thenAnswer(invocation -> {
+            Student racing = studentRepository.findById(studentIds.get(0)).orElseThrow();
+            enrollmentRepository.save(new Enrollment(racing, "course-a"));
+            return 2;
+        });
+
+        BulkEnrollmentResult result = bulkEnrollmentService.enroll(new BulkEnrollmentRequest("course-a",
+                List.of(studentIds.get(0), studentIds.get(1)), null));
+
+        assertThat(result.items()).extracting(BulkEnrollmentResult.ItemResult::success).containsExactly(false, true);
+        assertThat(seatOutboxRepository.findAll()).singleElement()
+                .satisfies(event -> assertThat(event.getDelta()).isEqualTo(-1));
+        assertThat(enrollmentRepository.countActiveEnrollmentsByCourse("course-a")).isEqualTo(2);
+    }
+
+    private Map<String, Object> courseInfo(String courseId, String day, String startTime, String endTime) {
+        Map<String, Object> courseInfo = new HashMap<>();
+        courseInfo.put("id", courseId);
+        courseInfo.put("title", "课程" + courseId);
+        courseInfo.put("schedule", Map.of("dayOfWeek", day, "startTime", startTime, "endTime", endTime));
+        return courseInfo;
+    }
+}
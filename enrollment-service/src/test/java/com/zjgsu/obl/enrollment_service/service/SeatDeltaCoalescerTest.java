@@ -0,0 +1,126 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.SeatOutboxRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 占座合并：窗口内的并发选课按课程合并为一次批量调用，课程服务返回的实际人数决定哪些请求成功
+ */
+@SpringBootTest(properties = {
+        "enrollment.outbox.poll-interval-ms=3600000",
+        "enrollment.seat-coalescing.enabled=true",
+        "enrollment.seat-coalescing.max-batch=10"
+})
+@ActiveProfiles("test")
+class SeatDeltaCoalescerTest {
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private SeatDeltaCoalescer seatDeltaCoalescer;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private SeatOutboxRepository seatOutboxRepository;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private final List<String> studentIds = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        seatOutboxRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        studentIds.clear();
+        studentIds.addAll(TestStudents.saveAll(studentRepository, "SC", 10));
+        executor = Executors.newFixedThreadPool(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fullBatchIsSubmittedAsOneWritePerCourse() throws Exception {
+        // 窗口足够长，只能靠攒满一批触发提交
+        ReflectionTestUtils.setField(seatDeltaCoalescer, "window", Duration.ofSeconds(30));
+        when(catalogClient.applySeatDeltas(anyMap())).thenReturn(Map.of("hot", 6));
+        long courseWrites = (long) seatDeltaCoalescer.stats().get("courseWrites");
+
+        List<Future<?>> results = new ArrayList<>();
+        for (String studentId : studentIds) {
+            results.add(executor.submit(() -> enrollmentService.enrollStudent("hot", studentId)));
+        }
+        int enrolled = 0;
+        int full = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+                enrolled++;
+            } catch (Exception e) {
+                assertThat(e.getCause()).isInstanceOf(BusinessException.class).hasMessageContaining("容量已满");
+                full++;
+            }
+        }
+
+        assertThat(enrolled).isEqualTo(6);
+        assertThat(full).isEqualTo(4);
+        verify(catalogClient, times(1)).applySeatDeltas(Map.of("hot", 10));
+        verify(catalogClient, never()).reserveSeat(anyString());
+        assertThat(enrollmentRepository.count()).isEqualTo(6);
+        assertThat(seatDeltaCoalescer.stats()).containsEntry("courseWrites", courseWrites + 1);
+    }
+
+    @Test
+    void requestsWithinWindowAreGroupedByCourse() throws Exception {
+        ReflectionTestUtils.setField(seatDeltaCoalescer, "window", Duration.ofMillis(500));
+        when(catalogClient.applySeatDeltas(anyMap())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (String courseId : List.of("math", "math", "physics")) {
+            results.add(CompletableFuture.supplyAsync(() -> seatDeltaCoalescer.reserve(courseId), executor));
+        }
+
+        assertThat(results).allSatisfy(result -> assertThat(result.get()).isTrue());
+        verify(catalogClient, times(1)).applySeatDeltas(Map.of("math", 2, "physics", 1));
+    }
+}
@@ -0,0 +1,270 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.TestStudents;
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.SeatOutboxEvent;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.SeatOutboxRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 人数变化 outbox：选课/退课事务中不调用课程服务，后台投递带事件ID、整批一次调用，失败后退避重试，
+ * 重新投递时使用相同的事件ID
+ */
+@SpringBootTest(properties = {
+        // 投递由测试手动触发
+        "enrollment.outbox.poll-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class SeatOutboxTest {
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private SeatOutbox seatOutbox;
+
+    @Autowired
+    private SeatOutboxRepository seatOutboxRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private final List<String> studentIds = new ArrayList<>();
+
+    // 课程服务收到的每次投递：按课程合并后的人数变化和事件ID，按调用顺序记录
+    private final List<Map<String, Integer>> deliveries = new CopyOnWriteArrayList<>();
+    private final List<List<String>> deliveredIds = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        seatOutboxRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        studentIds.clear();
+        deliveries.clear();
+        deliveredIds.clear();
+        studentIds.addAll(TestStudents.saveAll(studentRepository, "OB", 4));
+        ReflectionTestUtils.setField(seatOutbox, "initialBackoff", Duration.ofMinutes(1));
+
+        // 调用课程服务时不应处在数据库事务中
+        when(catalogClient.reserveSeat(anyString())).thenAnswer(invocation -> {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+            return true;
+        });
+        when(catalogClient.applySeatEvents(anyList())).thenAnswer(invocation -> record(invocation.getArgument(0)));
+    }
+
+    private Map<String, Integer> record(List<SeatOutboxEvent> events) {
+        Map<String, Integer> deltas = new HashMap<>();
+        events.forEach(event -> deltas.merge(event.getCourseId(), event.getDelta(), Integer::sum));
+        deliveries.add(deltas);
+        deliveredIds.add(events.stream().map(SeatOutboxEvent::getId).toList());
+        return deltas;
+    }
+
+    @Test
+    void dropsAreRelayedAsOneBulkCall() {
+        List<Enrollment> math = new ArrayList<>();
+        for (String studentId : studentIds) {
+            math.add(enrollmentService.enrollStudent("math", studentId));
+        }
+        Enrollment physics = enrollmentService.enrollStudent("physics", studentIds.get(0));
+
+        math.subList(0, 3).forEach(enrollment -> enrollmentService.dropEnrollment(enrollment.getId()));
+        enrollmentService.dropEnrollment(physics.getId());
+
+        // 退课时不调用课程服务，释放座位记录在 outbox 中
+        verify(catalogClient, never()).applySeatEvents(anyList());
+        List<String> eventIds = seatOutboxRepository.findAll().stream().map(SeatOutboxEvent::getId).toList();
+        assertThat(seatOutboxRepository.findAll()).extracting(SeatOutboxEvent::getCourseId)
+                .containsExactly("math", "math", "math", "physics");
+
+        seatOutbox.relay();
+
+        // 所有事件带着各自的ID一次调用投递
+        verify(catalogClient, times(1)).applySeatEvents(anyList());
+        assertThat(deliveries).containsExactly(Map.of("math", -3, "physics", -1));
+        assertThat(deliveredIds).singleElement().isEqualTo(eventIds);
+        assertThat(seatOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void failedDeliveryBacksOffAndKeepsOrder() {
+        Enrollment math = enrollmentService.enrollStudent("math", studentIds.get(0));
+        Enrollment physics = enrollmentService.enrollStudent("physics", studentIds.get(0));
+        enrollmentService.dropEnrollment(math.getId());
+        enrollmentService.dropEnrollment(physics.getId());
+        doThrow(new BusinessException("课程服务暂时不可用: 503")).when(catalogClient).applySeatEvents(anyList());
+
+        seatOutbox.relay();
+
+        assertThat(seatOutboxRepository.findAll()).hasSize(2).allSatisfy(event -> {
+            assertThat(event.getAttempts()).isEqualTo(1);
+            assertThat(event.getLastError()).contains("503");
+        });
+
+        // 退避期间新写入的同课程事件也要排在后面，不能先投递
+        Enrollment again = enrollmentService.enrollStudent("math", studentIds.get(1));
+        enrollmentService.dropEnrollment(again.getId());
+        reset(catalogClient);
+        seatOutbox.relay();
+        verify(catalogClient, never()).applySeatEvents(anyList());
+
+        // 退避结束后整批重新投递；已删除的课程不在结果中，事件照样删除
+        when(catalogClient.applySeatEvents(anyList())).thenAnswer(invocation -> {
+            record(invocation.getArgument(0));
+            return Map.of("math", -2);
+        });
+        seatOutboxRepository.findAll().forEach(event -> {
+            event.setNextAttemptAt(event.getCreatedAt());
+            seatOutboxRepository.save(event);
+        });
+        seatOutbox.relay();
+        verify(catalogClient, times(1)).applySeatEvents(anyList());
+        assertThat(deliveries).containsExactly(Map.of("math", -2, "physics", -1));
+        assertThat(seatOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void redeliveryAfterLostResponseReusesEventIds() {
+        seatOutbox.appendNow("math", -1);
+        seatOutbox.appendNow("math", 1);
+        String[] eventIds = seatOutboxRepository.findAll().stream().map(SeatOutboxEvent::getId).toArray(String[]::new);
+        // 课程服务已应用，但响应在返回途中丢失
+        doAnswer(invocation -> {
+            record(invocation.getArgument(0));
+            throw new BusinessException("课程服务暂时不可用，请稍后重试");
+        }).when(catalogClient).applySeatEvents(anyList());
+
+        seatOutbox.relay();
+        assertThat(seatOutboxRepository.count()).isEqualTo(2);
+
+        // 相互抵消的事件也要带着原来的ID重新投递，由课程服务按ID跳过已应用的事件
+        doAnswer(invocation -> record(invocation.getArgument(0))).when(catalogClient).applySeatEvents(anyList());
+        seatOutboxRepository.findAll().forEach(event -> {
+            event.setNextAttemptAt(event.getCreatedAt());
+            seatOutboxRepository.save(event);
+        });
+        seatOutbox.relay();
+        // 批量调用、逐门课程重试、退避后重新投递，三次都是同样的两个事件ID
+        assertThat(deliveredIds).hasSize(3).allSatisfy(ids -> assertThat(ids).containsExactly(eventIds));
+        assertThat(seatOutboxRepository.count()).isZero();
+    }
+
+    @Test
+    void failingCourseDoesNotHoldBackOtherCourses() {
+        seatOutbox.appendNow("broken", -1);
+        seatOutbox.appendNow("healthy", -1);
+        doAnswer(invocation -> {
+            List<SeatOutboxEvent> events = invocation.getArgument(0);
+            if (events.stream().anyMatch(event -> event.getCourseId().equals("broken"))) {
+                throw new BusinessException("课程服务返回错误: 500");
+            }
+            return record(events);
+        }).when(catalogClient).applySeatEvents(anyList());
+
+        // 批量调用失败后逐门课程重试，只有出错的课程进入退避
+        seatOutbox.relay();
+        assertThat(deliveries).containsExactly(Map.of("healthy", -1));
+        assertThat(seatOutboxRepository.findAll()).singleElement().satisfies(event -> {
+            assertThat(event.getCourseId()).isEqualTo("broken");
+            assertThat(event.getAttempts()).isEqualTo(1);
+        });
+
+        // 退避中的课程排在最前面也不占用批次，后写入的其他课程照常投递
+        ReflectionTestUtils.setField(seatOutbox, "batchSize", 1);
+        try {
+            seatOutbox.appendNow("healthy", -2);
+            seatOutbox.relay();
+        } finally {
+            ReflectionTestUtils.setField(seatOutbox, "batchSize", 500);
+        }
+        assertThat(deliveries).containsExactly(Map.of("healthy", -1), Map.of("healthy", -2));
+        assertThat(seatOutboxRepository.findAll()).extracting(SeatOutboxEvent::getCourseId).containsExactly("broken");
+    }
+
+    @Test
+    void concurrentDuplicateEnrollmentReturnsTheSeat() throws Exception {
+        // 两个相同的请求都在对方写入前通过重复检查并各占一个座位
+        CountDownLatch bothReserved = new CountDownLatch(2);
+        when(catalogClient.reserveSeat("math")).thenAnswer(invocation -> {
+            bothReserved.countDown();
+            assertThat(bothReserved.await(10, TimeUnit.SECONDS)).isTrue();
+            return true;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<Enrollment>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(() -> enrollmentService.enrollStudent("math", studentIds.get(0))));
+            }
+            int succeeded = 0;
+            for (Future<Enrollment> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(BusinessException.class);
+                }
+            }
+            assertThat(succeeded).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 唯一约束拦下后写入的请求，它占的座位写入 outbox 归还
+        assertThat(enrollmentRepository.count()).isEqualTo(1);
+        verify(catalogClient, times(2)).reserveSeat("math");
+        assertThat(seatOutboxRepository.findAll()).singleElement().satisfies(event -> {
+            assertThat(event.getCourseId()).isEqualTo("math");
+            assertThat(event.getDelta()).isEqualTo(-1);
+        });
+
+        seatOutbox.relay();
+        assertThat(deliveries).containsExactly(Map.of("math", -1));
+        assertThatThrownBy(() -> enrollmentService.enrollStudent("math", studentIds.get(0)))
+                .isInstanceOf(BusinessException.class);
+    }
+}
@@ -0,0 +1,156 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.dto.StudentImportResult;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * CSV 学生导入：逐块查重与提交、重复/无效行统计，以及按块批量写入
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+        "enrollment.import.chunk-size=3"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class StudentImportServiceTest {
+    private static final String CSV = "\uFEFFstudentId,name,major,grade,email\r\n"
+            + "S001,张三,计算机科学与技术,2024,a@example.edu.cn\r\n"
+            + "S002,\"李, 四\",软件工程,2024,b@example.edu.cn\r\n"
+            + "S003,王五,软件工程,abc,c@example.edu.cn\r\n"
+            + "S001,赵六,软件工程,2024,d@example.edu.cn\r\n"
+            + "\r\n"
+            + "EXIST1,已存在,软件工程,2023,exist-new@example.edu.cn\r\n"
+            + "S006,钱七,,,not-an-email\r\n"
+            + "S007,\"多行\n姓名\",软件工程,2024,e@example.edu.cn\r\n"
+            + "S008,孙八,软件工程,2024,a@example.edu.cn\r\n";
+
+    @Autowired
+    private StudentImportService studentImportService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+
+        Student existing = new Student();
+        existing.setStudentId("EXIST1");
+        existing.setName("已有学生");
+        existing.setEmail("exist@example.edu.cn");
+        studentRepository.save(existing);
+    }
+
+    @Test
+    void reportsCreatedDuplicateAndInvalidRows() {
+        StudentImportResult result = studentImportService.importCsv(stream(CSV));
+
+        assertThat(result.totalRows()).isEqualTo(8);
+        assertThat(result.created()).isEqualTo(3);
+        assertThat(result.duplicates()).isEqualTo(3);
+        assertThat(result.invalid()).isEqualTo(2);
+        assertThat(result.failed()).isZero();
+        assertThat(result.errors())
+                .extracting(StudentImportResult.RowError::line, StudentImportResult.RowError::reason)
+                .containsExactlyInAnyOrder(
+                        tuple(4L, "年级必须是整数"),
+                        tuple(5L, "文件中学号重复"),
+                        tuple(7L, "学号已存在"),
+                        tuple(8L, "邮箱格式不正确"),
+                        tuple(11L, "邮箱已存在"));
+
+        assertThat(studentRepository.findByStudentId("S002")).get()
+                .satisfies(student -> assertThat(student.getName()).isEqualTo("李, 四"));
+        assertThat(studentRepository.findByStudentId("S007")).get()
+                .satisfies(student -> assertThat(student.getName()).isEqualTo("多行\n姓名"));
+        assertThat(studentRepository.count()).isEqualTo(4);
+    }
+
+    @Test
+    void acceptsMultipartAndRawCsv() throws Exception {
+        mockMvc.perform(multipart("/api/students/import")
+                        .file(new MockMultipartFile("file", "students.csv", "text/csv",
+                                CSV.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.created").value(3));
+
+        mockMvc.perform(post("/api/students/import")
+                        .contentType("text/csv")
+                        .content("studentId,name,email\nS100,周九,s100@example.edu.cn\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.created").value(1));
+
+        mockMvc.perform(post("/api/students/import")
+                        .contentType("text/csv")
+                        .content("studentId,name\nS101,吴十\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void checksAndInsertsPerChunk() {
+        ReflectionTestUtils.setField(studentImportService, "chunkSize", 500);
+        int rows = 2500;
+        InputStream input = new SequenceInputStream(Collections.enumeration(IntStream.rangeClosed(0, rows)
+                .mapToObj(i -> stream(i == 0 ? "studentId,name,major,grade,email\n"
+                        : "B" + i + ",学生" + i + ",软件工程,2024,b" + i + "@example.edu.cn\n"))
+                .toList()));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        StudentImportResult result = studentImportService.importCsv(input);
+
+        assertThat(result.created()).isEqualTo(rows);
+        assertThat(statistics.getTransactionCount()).isEqualTo(rows / 500);
+        // 每块 2 条 IN 查询 + 10 个 INSERT 批次（batch_size=50），逐行处理则需要 7500 条语句
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(rows / 500 * 12);
+        ReflectionTestUtils.setField(studentImportService, "chunkSize", 3);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,166 @@
+package com.zjgsu.obl.enrollment_service.service;
+
+import com.zjgsu.obl.enrollment_service.client.CatalogClient;
+import com.zjgsu.obl.enrollment_service.exception.BusinessException;
+import com.zjgsu.obl.enrollment_service.model.Enrollment;
+import com.zjgsu.obl.enrollment_service.model.Student;
+import com.zjgsu.obl.enrollment_service.respository.EnrollmentRepository;
+import com.zjgsu.obl.enrollment_service.respository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 选课时的上课时间冲突检查：学生课表只构建一次，之后的检查不再查询已有选课的课程信息
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StudentTimetableCacheTest {
+    private static final Map<String, Map<String, Object>> COURSES = Map.of(
+            "math", course("math", "高等数学", "MONDAY", "08:00", "10:00"),
+            "physics", course("physics", "大学物理", "MONDAY", "09:00", "11:00"),
+            "english", course("english", "大学英语", "MONDAY", "10:00", "12:00"),
+            "history", course("history", "中国近代史", "TUESDAY", "09:00", "11:00"),
+            "seminar", course("seminar", "研讨课", "MONDAY", "10:30", "11:30"),
+            "online", Map.of("id", "online", "title", "在线课程"));
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private StudentTimetableCache studentTimetableCache;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockitoBean
+    private CatalogClient catalogClient;
+
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        studentRepository.deleteAll();
+        student = new Student();
+        student.setStudentId("T001");
+        student.setName("课表测试");
+        student.setEmail("timetable@example.edu.cn");
+        student = studentRepository.save(student);
+        studentTimetableCache.invalidate(student.getId());
+
+        when(catalogClient.getCourseStaticInfo(anyString()))
+                .thenAnswer(invocation -> COURSES.get(invocation.<String>getArgument(0)));
+        when(catalogClient.getCourseStaticInfos(anyCollection())).thenAnswer(invocation -> {
+            Map<String, Map<String, Object>> infos = new HashMap<>();
+            for (String courseId : invocation.<Collection<String>>getArgument(0)) {
+                infos.put(courseId, COURSES.get(courseId));
+            }
+            return infos;
+        });
+        when(catalogClient.reserveSeat(anyString())).thenReturn(true);
+    }
+
+    @Test
+    void rejectsOverlappingCourseBeforeReservingSeat() {
+        long builds = (long) studentTimetableCache.stats().get("builds");
+        enrollmentService.enrollStudent("math", student.getId());
+
+        assertThatThrownBy(() -> enrollmentService.enrollStudent("physics", student.getId()))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("上课时间冲突")
+                .hasMessageContaining("高等数学");
+        verify(catalogClient, never()).reserveSeat("physics");
+
+        // 首尾相接、不同天、没有时间安排的课程都不冲突
+        enrollmentService.enrollStudent("english", student.getId());
+        enrollmentService.enrollStudent("history", student.getId());
+        enrollmentService.enrollStudent("online", student.getId());
+        assertThat(enrollmentRepository.findActiveCourseIdsByStudentId(student.getId()))
+                .containsExactlyInAnyOrder("math", "english", "history", "online");
+
+        // 课表只在第一次选课时构建一次（没有已选课程，不调用课程服务），之后的检查都在缓存的课表上完成
+        assertThat((long) studentTimetableCache.stats().get("builds")).isEqualTo(builds + 1);
+        verify(catalogClient, never()).getCourseStaticInfos(anyCollection());
+    }
+
+    @Test
+    void droppingCourseFreesItsSlot() {
+        Enrollment math = enrollmentService.enrollStudent("math", student.getId());
+        enrollmentService.dropEnrollment(math.getId());
+
+        enrollmentService.enrollStudent("physics", student.getId());
+
+        assertThat(enrollmentRepository.findActiveCourseIdsByStudentId(student.getId())).containsExactly("physics");
+    }
+
+    @Test
+    void rolledBackDropKeepsSlot() {
+        Enrollment math = enrollmentService.enrollStudent("math", student.getId());
+        transactionTemplate.executeWithoutResult(status -> {
+            enrollmentService.dropEnrollment(math.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThatThrownBy(() -> enrollmentService.enrollStudent("physics", student.getId()))
+                .hasMessageContaining("上课时间冲突");
+    }
+
+    @Test
+    void failedEnrollmentReleasesSlot() {
+        when(catalogClient.reserveSeat("physics")).thenReturn(false);
+        assertThatThrownBy(() -> enrollmentService.enrollStudent("physics", student.getId()))
+                .hasMessageContaining("课程容量已满");
+
+        enrollmentService.enrollStudent("math", student.getId());
+    }
+
+    @Test
+    void buildsFromExistingOverlappingEnrollments() {
+        // 冲突检查上线前已经存在的重叠选课：math 08:00-10:00 与 physics 09:00-11:00
+        enrollmentRepository.save(new Enrollment(student, "math"));
+        enrollmentRepository.save(new Enrollment(student, "physics"));
+
+        assertThatThrownBy(() -> enrollmentService.enrollStudent("seminar", student.getId()))
+                .hasMessageContaining("大学物理");
+
+        // 退掉 physics 后合并的时间段拆开，10:30 开始的课程不再冲突
+        Enrollment physics = enrollmentRepository.findByStudentId(student.getId()).stream()
+                .filter(enrollment -> enrollment.getCourseId().equals("physics"))
+                .findFirst().orElseThrow();
+        enrollmentService.dropEnrollment(physics.getId());
+        enrollmentService.enrollStudent("seminar", student.getId());
+        assertThatThrownBy(() -> enrollmentService.enrollStudent("english", student.getId()))
+                .hasMessageContaining("研讨课");
+        verify(catalogClient, times(1)).getCourseStaticInfos(any());
+    }
+
+    private static Map<String, Object> course(String id, String title, String day, String start, String end) {
+        return Map.of("id", id, "title", title,
+                "schedule", Map.of("dayOfWeek", day, "startTime", start, "endTime", end));
+    }
+}